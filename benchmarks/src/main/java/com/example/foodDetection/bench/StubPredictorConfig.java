@@ -0,0 +1,44 @@
+package com.example.foodDetection.bench;
+
+import com.example.foodDetection.prediction.ImageInput;
+import com.example.foodDetection.prediction.PredictionResult;
+import com.example.foodDetection.prediction.Predictor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.List;
+
+// Replaces the Python/TensorFlow engine with a fixed-latency fake so the harness measures
+// the web, cache, batching and enrichment layers without needing the model or a GPU.
+@Configuration
+public class StubPredictorConfig {
+
+    private static final List<String> CLASSES = List.of(
+        "pizza", "hamburger", "sushi", "ramen", "tacos", "caesar_salad", "pad_thai", "ice_cream"
+    );
+
+    @Value("${stub.latency-ms:20}")
+    private long latencyMs;
+
+    @Bean
+    @Primary
+    public Predictor stubPredictor() {
+        return image -> {
+            Thread.sleep(latencyMs);
+            return PredictionResult.fromScores(scoresFor(image), CLASSES);
+        };
+    }
+
+    // Deterministic per image, so different uploads land on different dishes
+    private static float[] scoresFor(ImageInput image) {
+        int seed = image.isInMemory() ? image.getBuffer()[0] : image.getFile().hashCode();
+        float[] scores = new float[CLASSES.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = 0.02f;
+        }
+        scores[Math.floorMod(seed, scores.length)] = 0.86f;
+        return scores;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.foodDetection.bench;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+
+// Local stand-in for api.spoonacular.com: answers every complexSearch with a recorded
+// response after a fixed delay, so load runs cost no quota and have a stable upstream.
+public class StubSpoonacularServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    public StubSpoonacularServer(long latencyMs) throws IOException {
+        byte[] body;
+        try (InputStream in = getClass().getResourceAsStream("/spoonacular/complexSearch-pizza.json")) {
+            body = in.readAllBytes();
+        }
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/recipes/complexSearch", exchange -> {
+            try {
+                if (latencyMs > 0) {
+                    Thread.sleep(latencyMs);
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.getResponseHeaders().set("X-API-Quota-Used", "1");
+                exchange.getResponseHeaders().set("X-API-Quota-Left", "1000000");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
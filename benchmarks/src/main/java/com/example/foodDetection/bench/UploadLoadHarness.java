@@ -0,0 +1,134 @@
+package com.example.foodDetection.bench;
+
+import com.example.foodDetection.FoodDetectionApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// End-to-end load test of POST /upload: boots the application on a random port with a stub
+// predictor and a stub Spoonacular, fires concurrent multipart uploads and reports latency
+// percentiles. Settings are system properties (bench.*, stub.*); program arguments are
+// passed through to Spring, e.g. --food-info.cache.enabled=false.
+public class UploadLoadHarness {
+
+    private static final String BOUNDARY = "----foodDetectionBench";
+
+    public static void main(String[] args) throws Exception {
+        int requests = Integer.getInteger("bench.requests", 2000);
+        int warmup = Integer.getInteger("bench.warmup", 200);
+        int concurrency = Integer.getInteger("bench.concurrency", 32);
+        int imageBytes = Integer.getInteger("bench.image-bytes", 200 * 1024);
+        long upstreamLatencyMs = Long.getLong("stub.spoonacular-latency-ms", 150);
+
+        try (StubSpoonacularServer spoonacular = new StubSpoonacularServer(upstreamLatencyMs)) {
+            List<String> springArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spoonacular.api.key=bench",
+                "--spoonacular.api.base-url=" + spoonacular.getBaseUrl(),
+                "--spoonacular.rate-limit.per-second=100000",
+                "--spoonacular.rate-limit.burst=1000",
+                "--prediction.cache.enabled=false",
+                // The harness warms up with its own requests
+                "--warmup.food-info.enabled=false",
+                "--food-info.cache.file="
+            ));
+            springArgs.addAll(Arrays.asList(args));
+
+            SpringApplication app = new SpringApplication(FoodDetectionApplication.class, StubPredictorConfig.class);
+            try (ConfigurableApplicationContext context = app.run(springArgs.toArray(new String[0]))) {
+                int port = context.getEnvironment().getProperty("local.server.port", Integer.class);
+                URI uploadUri = URI.create("http://localhost:" + port + "/upload");
+                HttpClient client = HttpClient.newHttpClient();
+
+                System.out.println("Warming up with " + warmup + " requests");
+                run(client, uploadUri, warmup, concurrency, imageBytes);
+
+                System.out.println("Measuring " + requests + " requests at concurrency " + concurrency);
+                long start = System.nanoTime();
+                Result result = run(client, uploadUri, requests, concurrency, imageBytes);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                long[] latencies = result.latenciesNanos;
+                Arrays.sort(latencies);
+                System.out.printf("Throughput: %.1f req/s (%d ok, %d failed)%n",
+                    requests / seconds, requests - result.failures, result.failures);
+                System.out.printf("Latency ms: p50=%.1f p90=%.1f p99=%.1f max=%.1f%n",
+                    percentile(latencies, 50), percentile(latencies, 90),
+                    percentile(latencies, 99), latencies[latencies.length - 1] / 1e6);
+            }
+        }
+    }
+
+    private static Result run(HttpClient client, URI uri, int requests, int concurrency, int imageBytes)
+            throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+
+        try (ExecutorService workers = Executors.newFixedThreadPool(concurrency)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < concurrency; w++) {
+                futures.add(workers.submit(() -> {
+                    Random random = new Random();
+                    int i;
+                    while ((i = next.getAndIncrement()) < requests) {
+                        // Distinct bytes per request, so the prediction cache can never short-circuit it
+                        byte[] image = new byte[imageBytes];
+                        random.nextBytes(image);
+
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(
+                                multipart(uri, image), HttpResponse.BodyHandlers.discarding()
+                            );
+                            if (response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - start;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return new Result(latencies, failures.get());
+    }
+
+    private static HttpRequest multipart(URI uri, byte[] image) {
+        byte[] head = ("--" + BOUNDARY + "\r\n"
+            + "Content-Disposition: form-data; name=\"image\"; filename=\"bench.jpg\"\r\n"
+            + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        return HttpRequest.newBuilder(uri)
+            .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+            .POST(HttpRequest.BodyPublishers.ofByteArrays(List.of(head, image, tail)))
+            .build();
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private record Result(long[] latenciesNanos, int failures) {
+    }
+}
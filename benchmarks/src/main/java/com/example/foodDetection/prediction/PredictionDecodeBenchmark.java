@@ -0,0 +1,60 @@
+package com.example.foodDetection.prediction;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Cost of turning one predictor response line into a PredictionResult
+// (the successor of FoodController.parsePrediction).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredictionDecodeBenchmark {
+
+    // 8 = the shipped model, 101 = full Food-101
+    @Param({"8", "101"})
+    public int classes;
+
+    private String response;
+    private List<String> classNames;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        float[] scores = new float[classes];
+        float sum = 0;
+        for (int i = 0; i < classes; i++) {
+            scores[i] = random.nextFloat();
+            sum += scores[i];
+        }
+
+        StringBuilder line = new StringBuilder("{\"v\":1,\"type\":\"scores\",\"scores\":[");
+        classNames = new ArrayList<>(classes);
+        for (int i = 0; i < classes; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(String.format(Locale.ROOT, "%.9g", scores[i] / sum));
+            classNames.add("class_" + i);
+        }
+        response = line.append("]}").toString();
+    }
+
+    @Benchmark
+    public PredictorProtocol.Message decode() throws IOException {
+        return PredictorProtocol.decode(response, classes);
+    }
+
+    @Benchmark
+    public PredictionResult decodeAndRank() throws IOException {
+        return PredictionResult.fromScores(PredictorProtocol.decode(response, classes).getScores(), classNames);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.foodDetection.prediction;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Decode + resize + EfficientNet preprocessing of one JPEG, from a thumbnail up to a 12 MP phone photo
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreprocessBenchmark {
+
+    @Param({"640x480", "1920x1080", "4032x3024"})
+    public String size;
+
+    private final ImagePreprocessor preprocessor = new ImagePreprocessor();
+    private byte[] jpeg;
+
+    @Setup
+    public void setup() throws IOException {
+        preprocessor.init();
+
+        String[] dims = size.split("x");
+        int width = Integer.parseInt(dims[0]);
+        int height = Integer.parseInt(dims[1]);
+
+        // A gradient with some shapes compresses roughly like a real photo, unlike a flat fill
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(200, 120, 40), width, height, new Color(30, 90, 160)));
+        g.fillRect(0, 0, width, height);
+        g.setColor(new Color(240, 220, 180));
+        for (int i = 0; i < 40; i++) {
+            g.fillOval((i * 97) % width, (i * 53) % height, width / 10, height / 10);
+        }
+        g.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        jpeg = out.toByteArray();
+    }
+
+    @Benchmark
+    public float[] preprocess() throws IOException {
+        return preprocessor.preprocess(ImageInput.of(jpeg));
+    }
+
+    // A full micro-batch decoded in parallel into one pooled buffer, as TensorFlowPredictor does
+    @Benchmark
+    public float[] preprocessBatchOf8() throws IOException {
+        List<ImageInput> images = Collections.nCopies(8, ImageInput.of(jpeg));
+        float[] buffer = preprocessor.acquireBuffer(images.size());
+        preprocessor.preprocessBatch(images, buffer);
+        preprocessor.releaseBuffer(buffer);
+        return buffer;
+    }
+
+    @TearDown
+    public void tearDown() {
+        preprocessor.shutdown();
+    }
+}
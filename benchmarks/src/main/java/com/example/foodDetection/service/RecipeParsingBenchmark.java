@@ -0,0 +1,72 @@
+package com.example.foodDetection.service;
+
+import com.example.foodDetection.service.FoodInfoService.FoodInfo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Spoonacular response handling in FoodInfoService, using a recorded complexSearch response
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeParsingBenchmark {
+
+    private final FoodInfoService service = new FoodInfoService();
+    private AllergenEngine allergenEngine;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String responseBody;
+    private JsonNode recipe;
+    private List<String> ingredients;
+
+    @Setup
+    public void setup() throws Exception {
+        allergenEngine = new AllergenEngine();
+        allergenEngine.init();
+        // FoodInfoService is field-injected; outside Spring the engine is set the same way
+        Field field = FoodInfoService.class.getDeclaredField("allergenEngine");
+        field.setAccessible(true);
+        field.set(service, allergenEngine);
+
+        try (InputStream in = getClass().getResourceAsStream("/spoonacular/complexSearch-pizza.json")) {
+            responseBody = new String(in.readAllBytes());
+        }
+        recipe = objectMapper.readTree(responseBody).get("results").get(0);
+
+        ingredients = new ArrayList<>();
+        for (JsonNode ingredient : recipe.get("extendedIngredients")) {
+            ingredients.add(ingredient.get("original").asText());
+        }
+    }
+
+    @Benchmark
+    public List<String> detectAllergens() {
+        return service.detectAllergensFromIngredients(ingredients);
+    }
+
+    // The matcher alone, as used in bulk over recipe catalogs: no allocation at all
+    @Benchmark
+    public long detectAllergenBits() {
+        return allergenEngine.detect(ingredients);
+    }
+
+    @Benchmark
+    public FoodInfo parseRecipe() {
+        return service.parseRecipeData(recipe, "pizza");
+    }
+
+    @Benchmark
+    public FoodInfo readTreeAndParseRecipe() throws IOException {
+        JsonNode result = objectMapper.readTree(responseBody).get("results").get(0);
+        return service.parseRecipeData(result, "pizza");
+    }
+}
@@ -1,57 +1,253 @@
 import tensorflow as tf
 import numpy as np
+import argparse
+import hashlib
 import json
 import cv2
 import sys
 
-def predict_image(image_path):
-    """Load model and predict food"""
-    
-    # Load model
-    loaded = tf.saved_model.load('saved_model')
+# Version of the JSON-lines protocol spoken in --serve mode
+PROTOCOL_VERSION = 1
+
+FLOAT_MODEL = 'saved_model'
+
+class TFLiteModel:
+    """A reduced-precision model converted by quantize_model.py, run with
+    the TFLite interpreter. Inputs and outputs stay float32, so it is a
+    drop-in for the SavedModel signature."""
+
+    def __init__(self, path, threads=0):
+        self.interpreter = tf.lite.Interpreter(model_path=path, num_threads=threads or None)
+        self.input_index = self.interpreter.get_input_details()[0]['index']
+        self.output_index = self.interpreter.get_output_details()[0]['index']
+        self.batch_size = None
+
+    def __call__(self, images):
+        # Tensors are re-allocated only when the batch size changes
+        if self.batch_size != len(images):
+            self.interpreter.resize_tensor_input(self.input_index, list(images.shape))
+            self.interpreter.allocate_tensors()
+            self.batch_size = len(images)
+        self.interpreter.set_tensor(self.input_index, images.astype(np.float32))
+        self.interpreter.invoke()
+        return self.interpreter.get_tensor(self.output_index)
+
+def load_float_model(path=FLOAT_MODEL):
+    loaded = tf.saved_model.load(path)
     infer = loaded.signatures['serving_default']
-    
+    output_key = list(infer.structured_outputs.keys())[0]
+    return lambda images: infer(tf.constant(images))[output_key].numpy()
+
+def file_sha256(path):
+    digest = hashlib.sha256()
+    with open(path, 'rb') as f:
+        for chunk in iter(lambda: f.read(1 << 20), b''):
+            digest.update(chunk)
+    return digest.hexdigest()
+
+def passed_accuracy_check(path):
+    """Accuracy guardrail: a quantized model is only served if
+    "quantize_model.py check" passed for exactly this file"""
+    try:
+        with open(path + '.check.json', 'r') as f:
+            report = json.load(f)
+    except (OSError, ValueError):
+        return False
+    return report.get('passed') is True and report.get('model_sha256') == file_sha256(path)
+
+def load_model(model_path=FLOAT_MODEL, threads=0):
+    """Load model and class names once. Returns (run, class_names), where
+    run maps a float32 [n, 224, 224, 3] batch to [n, classes] probabilities."""
+
+    # Load model
+    if model_path.endswith('.tflite'):
+        if passed_accuracy_check(model_path):
+            run = TFLiteModel(model_path, threads)
+        else:
+            print(f"{model_path} has no passing accuracy check, serving {FLOAT_MODEL} instead. "
+                  f"Run: python quantize_model.py check --model {model_path} --images <dir>", file=sys.stderr)
+            run = load_float_model()
+    else:
+        run = load_float_model(model_path)
+
     # Load class names
     with open('food41_classes.json', 'r') as f:
         class_names = json.load(f)
-    
-    # Preprocess image
-    img = cv2.imread(image_path)
+
+    return run, class_names
+
+def read_image(image_ref, stdin=None):
+    """Decode an image given as a file path, as "@<length>" followed by
+    that many raw bytes on stdin (the in-memory upload path), or as
+    "%<length>" followed by 224x224 RGB pixels already preprocessed by Java"""
+    if image_ref.startswith("%"):
+        data = stdin.read(int(image_ref[1:]))
+        return np.frombuffer(data, np.uint8).reshape(224, 224, 3).astype(np.float32)
+    if image_ref.startswith("@"):
+        data = stdin.read(int(image_ref[1:]))
+        try:
+            return cv2.imdecode(np.frombuffer(data, np.uint8), cv2.IMREAD_COLOR)
+        except cv2.error:
+            return None
+    return cv2.imread(image_ref)
+
+def preprocess_image(img):
+    """Turn one BGR image into a 224x224 RGB float32 array, or None if unreadable"""
     if img is None:
-        print("Error: Could not read image")
-        sys.exit(1)
-    
+        return None
+    if img.dtype == np.float32:
+        # Decoded, converted and resized on the Java side already
+        return img
+
     img = cv2.cvtColor(img, cv2.COLOR_BGR2RGB)
     img = cv2.resize(img, (224, 224))
-    img_array = np.expand_dims(img, 0).astype(np.float32)
-    img_array = tf.keras.applications.efficientnet.preprocess_input(img_array)
-    
-    # Predict
-    output_key = list(infer.structured_outputs.keys())[0]
-    result = infer(tf.constant(img_array))
-    predictions = result[output_key].numpy()[0]
-    
+    return img.astype(np.float32)
+
+def print_predictions(predictions, class_names):
     # Get top prediction
     top_idx = np.argmax(predictions)
     top_class = class_names[top_idx]
     top_confidence = predictions[top_idx] * 100
-    
+
     # Print result in format that Java can parse
     print(f"Top prediction: {top_class} ({top_confidence:.1f}%)")
-    
+
     # Print all top 5 predictions
     print("All predictions:")
     top_indices = np.argsort(predictions)[-5:][::-1]
     for i, idx in enumerate(top_indices, 1):
         print(f"{i}. {class_names[idx]}: {predictions[idx]*100:.1f}%")
 
+def predict_batch(raw_images, model):
+    """Predict several decoded images with a single forward pass.
+
+    Returns one entry per image: the probability vector, or None if the image
+    could not be read.
+    """
+    run, class_names = model
+
+    # Preprocess images
+    images = [preprocess_image(img) for img in raw_images]
+    valid = [img for img in images if img is not None]
+    if not valid:
+        return [None] * len(images)
+
+    img_array = np.stack(valid)
+    img_array = tf.keras.applications.efficientnet.preprocess_input(img_array)
+
+    # Predict
+    predictions = iter(run(img_array))
+    return [next(predictions) if img is not None else None for img in images]
+
+def predict_image(img, model):
+    """Predict food using an already loaded model"""
+    predictions = predict_batch([img], model)[0]
+    if predictions is None:
+        print("Error: Could not read image")
+        return False
+
+    print_predictions(predictions, model[1])
+    return True
+
+def send(message):
+    """Write one protocol message as a single JSON line"""
+    message["v"] = PROTOCOL_VERSION
+    print(json.dumps(message, separators=(',', ':')))
+
+def send_scores(predictions):
+    # %.9g round-trips float32 exactly while staying far shorter than repr()
+    scores = ",".join("%.9g" % p for p in predictions)
+    print('{"v":%d,"type":"scores","scores":[%s]}' % (PROTOCOL_VERSION, scores))
+
+def serve(model_path=FLOAT_MODEL, threads=0):
+    """Keep the model loaded and answer one request per stdin line.
+
+    Each request is an image reference, PING, or "BATCH<TAB>ref<TAB>ref...",
+    where a reference is a file path, "@<length>" with the raw bytes
+    following the line, or "%<length>" with preprocessed RGB pixels
+    following it. Every answer is exactly one JSON line carrying the
+    protocol version "v" and a "type": ready, pong, scores (the full
+    probability vector in class order) or error. A batch produces one line
+    per image, in request order.
+    """
+    model = load_model(model_path, threads)
+    send({"type": "ready", "classes": len(model[1])})
+    sys.stdout.flush()
+
+    stdin = sys.stdin.buffer
+    while True:
+        line = stdin.readline()
+        if not line:
+            break
+        request = line.decode('utf-8').strip()
+        if not request:
+            continue
+        if request.startswith("BATCH\t"):
+            image_refs = request.split("\t")[1:]
+            try:
+                serve_batch(image_refs, stdin, model)
+            except Exception as e:
+                # The caller waits for one line per reference, whatever went wrong
+                for _ in image_refs:
+                    send({"type": "error", "message": str(e)})
+                sys.stdout.flush()
+            continue
+        try:
+            if request == "PING":
+                send({"type": "pong"})
+            else:
+                serve_batch([request], stdin, model)
+        except Exception as e:
+            send({"type": "error", "message": str(e)})
+        sys.stdout.flush()
+
+def serve_batch(image_refs, stdin, model):
+    # Every payload must be consumed from stdin, even if an earlier one fails
+    raw_images = []
+    errors = {}
+    for i, ref in enumerate(image_refs):
+        try:
+            raw_images.append(read_image(ref, stdin))
+        except Exception as e:
+            # e.g. a truncated pixel payload that cannot be reshaped, or a bad length prefix
+            errors[i] = e
+            raw_images.append(None)
+    try:
+        results = predict_batch(raw_images, model)
+    except Exception as e:
+        results = [e] * len(raw_images)
+
+    for i, predictions in enumerate(results):
+        predictions = errors.get(i, predictions)
+        if predictions is None:
+            send({"type": "error", "message": "Could not read image"})
+        elif isinstance(predictions, Exception):
+            send({"type": "error", "message": str(predictions)})
+        else:
+            send_scores(predictions)
+    sys.stdout.flush()
+
 if __name__ == '__main__':
-    if len(sys.argv) < 2:
+    parser = argparse.ArgumentParser()
+    parser.add_argument('image', nargs='?')
+    parser.add_argument('--serve', action='store_true')
+    parser.add_argument('--model', default=FLOAT_MODEL,
+                        help="SavedModel directory, or a .tflite file from quantize_model.py")
+    parser.add_argument('--threads', type=int, default=0,
+                        help="TFLite interpreter threads, 0 for the library default")
+    args = parser.parse_args()
+
+    if args.serve:
+        serve(args.model, args.threads)
+        sys.exit(0)
+
+    if args.image is None:
         print("Error: No image path provided")
         sys.exit(1)
-    
+
     try:
-        predict_image(sys.argv[1])
+        if not predict_image(cv2.imread(args.image), load_model(args.model, args.threads)):
+            sys.exit(1)
     except Exception as e:
         print(f"Error: {str(e)}")
-        sys.exit(1)
\ No newline at end of file
+        sys.exit(1)
@@ -0,0 +1,201 @@
+"""Reduced-precision variants of saved_model/ for CPU inference.
+
+    python quantize_model.py convert --mode fp16
+    python quantize_model.py convert --mode int8 --calibration-dir images/val
+    python quantize_model.py check --model model_int8.tflite --images images/val
+    python quantize_model.py bench --model model_int8.tflite --images images/val
+
+convert writes model_<mode>.tflite:
+  fp16     float16 weights, half the size, accuracy practically unchanged
+  dynamic  int8 weights, activations quantized on the fly, no calibration needed
+  int8     int8 weights and activations, calibrated on sample images; the fastest on CPU
+
+check is the accuracy guardrail. It runs the float model and the quantized one on
+a local validation set and measures how often their top-1 classes agree. If images
+are in one folder per class (named as in food41_classes.json), it also reports the
+accuracy of each model. The result goes to <model>.check.json. predict_spring.py
+only serves a .tflite model whose check passed for that exact file, and serves the
+float model otherwise.
+
+bench times both models on the same images, one at a time and in batches, and
+appends a latency/throughput table to the report (quantization_report.md).
+"""
+import argparse
+import json
+import os
+import sys
+import time
+
+import cv2
+import numpy as np
+import tensorflow as tf
+
+from predict_spring import FLOAT_MODEL, TFLiteModel, file_sha256, load_float_model, preprocess_image
+
+IMAGE_EXTENSIONS = ('.jpg', '.jpeg', '.png', '.bmp', '.webp')
+
+
+def list_images(directory):
+    """(path, label) pairs; the label is the parent folder name, or None for a flat folder"""
+    images = []
+    for root, _, files in os.walk(directory):
+        for name in sorted(files):
+            if name.lower().endswith(IMAGE_EXTENSIONS):
+                label = os.path.basename(root) if os.path.abspath(root) != os.path.abspath(directory) else None
+                images.append((os.path.join(root, name), label))
+    return sorted(images)
+
+
+def load_images(directory, limit=None):
+    images, labels = [], []
+    for path, label in list_images(directory)[:limit]:
+        img = preprocess_image(cv2.imread(path))
+        if img is not None:
+            images.append(img)
+            labels.append(label)
+    if not images:
+        sys.exit(f"No readable images in {directory}")
+    return np.stack(images), labels
+
+
+def convert(args):
+    converter = tf.lite.TFLiteConverter.from_saved_model(FLOAT_MODEL)
+    converter.optimizations = [tf.lite.Optimize.DEFAULT]
+    if args.mode == 'fp16':
+        converter.target_spec.supported_types = [tf.float16]
+    elif args.mode == 'int8':
+        if not args.calibration_dir:
+            sys.exit("int8 needs --calibration-dir with a few hundred representative images")
+        calibration, _ = load_images(args.calibration_dir, args.calibration_images)
+
+        def representative_dataset():
+            for img in calibration:
+                yield [img[np.newaxis]]
+
+        converter.representative_dataset = representative_dataset
+        # Integer kernels throughout; inputs and outputs stay float32 like the SavedModel signature
+        converter.target_spec.supported_ops = [tf.lite.OpsSet.TFLITE_BUILTINS_INT8]
+
+    out = args.out or f"model_{args.mode}.tflite"
+    with open(out, 'wb') as f:
+        f.write(converter.convert())
+    print(f"Wrote {out} ({os.path.getsize(out) / 1e6:.1f} MB)")
+
+
+def predict_all(run, images, batch_size=8):
+    return np.concatenate([run(images[i:i + batch_size]) for i in range(0, len(images), batch_size)])
+
+
+def check(args):
+    images, labels = load_images(args.images)
+    with open('food41_classes.json', 'r') as f:
+        class_names = json.load(f)
+
+    reference = predict_all(load_float_model(), images)
+    quantized = predict_all(TFLiteModel(args.model, args.threads), images)
+
+    top1_ref = reference.argmax(axis=1)
+    top1_quant = quantized.argmax(axis=1)
+    agreement = float(np.mean(top1_ref == top1_quant))
+    top5_ref = np.argsort(reference, axis=1)[:, -5:]
+    top1_in_top5 = float(np.mean([top1_quant[i] in top5_ref[i] for i in range(len(images))]))
+
+    report = {
+        'model': args.model,
+        'model_sha256': file_sha256(args.model),
+        'images': len(images),
+        'top1_agreement': agreement,
+        'top1_in_float_top5': top1_in_top5,
+        'max_abs_prob_diff': float(np.max(np.abs(reference - quantized))),
+        'min_agreement': args.min_agreement,
+        'passed': agreement >= args.min_agreement,
+    }
+    if all(label in class_names for label in labels):
+        truth = np.array([class_names.index(label) for label in labels])
+        report['float_accuracy'] = float(np.mean(top1_ref == truth))
+        report['quantized_accuracy'] = float(np.mean(top1_quant == truth))
+
+    with open(args.model + '.check.json', 'w') as f:
+        json.dump(report, f, indent=2)
+    print(json.dumps(report, indent=2))
+    if not report['passed']:
+        sys.exit(f"Top-1 agreement {agreement:.2%} is below {args.min_agreement:.2%}: "
+                 f"{args.model} will not be served")
+
+
+def time_model(run, images, batch_size, rounds):
+    """Per-call latencies in ms after a warmup call; throughput in images per second"""
+    batches = [images[i:i + batch_size] for i in range(0, len(images) - batch_size + 1, batch_size)]
+    if not batches:
+        sys.exit(f"Need at least {batch_size} images to time batches of {batch_size}")
+    run(batches[0])
+    latencies = []
+    start = time.perf_counter()
+    for _ in range(rounds):
+        for batch in batches:
+            t = time.perf_counter()
+            run(batch)
+            latencies.append((time.perf_counter() - t) * 1000)
+    elapsed = time.perf_counter() - start
+    return np.array(latencies), len(latencies) * batch_size / elapsed
+
+
+def bench(args):
+    images, _ = load_images(args.images, args.limit)
+    models = [(FLOAT_MODEL, load_float_model()), (args.model, TFLiteModel(args.model, args.threads))]
+    threads = args.threads or 'default'
+
+    lines = [f"## {os.path.basename(args.model)} vs {FLOAT_MODEL}", "",
+             f"{len(images)} images, {os.cpu_count()} CPUs, TFLite threads: {threads}", "",
+             "| model | batch | p50 ms | p95 ms | p99 ms | images/s |",
+             "|---|---:|---:|---:|---:|---:|"]
+    for name, run in models:
+        for batch_size in args.batch_sizes:
+            latencies, throughput = time_model(run, images, batch_size, args.rounds)
+            p50, p95, p99 = np.percentile(latencies, [50, 95, 99])
+            lines.append(f"| {name} | {batch_size} | {p50:.1f} | {p95:.1f} | {p99:.1f} | {throughput:.1f} |")
+
+    check_file = args.model + '.check.json'
+    if os.path.exists(check_file):
+        with open(check_file, 'r') as f:
+            result = json.load(f)
+        lines += ["", f"Accuracy check: top-1 agreement {result['top1_agreement']:.2%} on "
+                      f"{result['images']} images ({'passed' if result['passed'] else 'FAILED'})"]
+
+    table = "\n".join(lines) + "\n"
+    print(table)
+    with open(args.report, 'a') as f:
+        f.write(table + "\n")
+    print(f"Appended to {args.report}")
+
+
+if __name__ == '__main__':
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    commands = parser.add_subparsers(dest='command', required=True)
+
+    p = commands.add_parser('convert', help="write a reduced-precision .tflite model")
+    p.add_argument('--mode', choices=['fp16', 'dynamic', 'int8'], required=True)
+    p.add_argument('--calibration-dir', help="representative images for int8 calibration")
+    p.add_argument('--calibration-images', type=int, default=300)
+    p.add_argument('--out')
+    p.set_defaults(func=convert)
+
+    p = commands.add_parser('check', help="top-1 agreement with the float model")
+    p.add_argument('--model', required=True)
+    p.add_argument('--images', required=True)
+    p.add_argument('--min-agreement', type=float, default=0.98)
+    p.add_argument('--threads', type=int, default=0)
+    p.set_defaults(func=check)
+
+    p = commands.add_parser('bench', help="latency and throughput of both models")
+    p.add_argument('--model', required=True)
+    p.add_argument('--images', required=True)
+    p.add_argument('--limit', type=int, default=64)
+    p.add_argument('--rounds', type=int, default=3)
+    p.add_argument('--batch-sizes', type=int, nargs='+', default=[1, 8])
+    p.add_argument('--threads', type=int, default=0)
+    p.add_argument('--report', default='quantization_report.md')
+    p.set_defaults(func=bench)
+
+    args = parser.parse_args()
+    args.func(args)
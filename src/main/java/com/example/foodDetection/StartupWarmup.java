@@ -0,0 +1,167 @@
+package com.example.foodDetection;
+
+import com.example.foodDetection.prediction.ClassLabels;
+import com.example.foodDetection.prediction.ImageInput;
+import com.example.foodDetection.prediction.Predictor;
+import com.example.foodDetection.prediction.PythonPredictor;
+import com.example.foodDetection.prediction.PythonWorkerPool;
+import com.example.foodDetection.service.FoodInfoService;
+import com.example.foodDetection.service.SpoonacularClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Startup phase that takes the cold-start cost off real users. Spring Boot reports the readiness
+// probe (/actuator/health/readiness) as ACCEPTING_TRAFFIC only once every ApplicationRunner has
+// returned, so a rolling deploy routes no uploads here until the model is loaded in every worker,
+// a few synthetic inferences have warmed the decode/predict/parse paths, and FoodInfo is cached
+// for the model's classes. Liveness is unaffected, so a slow warmup is not mistaken for a hang.
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    @Autowired
+    private Predictor predictor;
+
+    @Autowired
+    private PythonWorkerPool pythonWorkerPool;
+
+    @Autowired
+    private ClassLabels classLabels;
+
+    @Autowired
+    private FoodInfoService foodInfoService;
+
+    @Autowired
+    private SpoonacularClient spoonacularClient;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.inferences:4}")
+    private int inferences;
+
+    @Value("${warmup.batch-size:8}")
+    private int batchSize;
+
+    @Value("${warmup.food-info.enabled:true}")
+    private boolean primeFoodInfo;
+
+    @Value("${warmup.food-info.budget-ms:30000}")
+    private long foodInfoBudgetMs;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        // A failed step is logged and skipped: a cold instance still beats one that never gets ready
+        try {
+            preloadModel();
+            warmInference();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            log.warn("Inference warmup failed, first requests will be slower: {}", e.getMessage());
+        }
+        if (primeFoodInfo) {
+            try {
+                primeFoodInfo();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("FoodInfo priming failed: {}", e.getMessage());
+            }
+        }
+        log.info("Warmup finished in {} ms", System.currentTimeMillis() - start);
+    }
+
+    // The Python pool otherwise only starts on the first upload. The in-JVM engine loads its model
+    // lazily on its first prediction, which the first of warmInference's calls triggers.
+    private void preloadModel() throws InterruptedException {
+        if (!(predictor instanceof PythonPredictor)) {
+            return;
+        }
+        if (!pythonWorkerPool.awaitReady(pythonWorkerPool.getStartupTimeoutMs())) {
+            log.warn("Only {} of {} Python workers ready after {} ms", pythonWorkerPool.getIdleWorkers(),
+                pythonWorkerPool.getPoolSize(), pythonWorkerPool.getStartupTimeoutMs());
+        }
+    }
+
+    // Straight to the predictor, past the prediction cache, which would answer all but the first.
+    // Idle workers are handed out round robin, so consecutive calls reach every worker.
+    private void warmInference() throws Exception {
+        byte[] image = syntheticJpeg();
+        for (int i = 0; i < inferences; i++) {
+            try (ImageInput input = ImageInput.of(image)) {
+                predictor.predict(input);
+            }
+        }
+        if (batchSize > 1) {
+            List<ImageInput> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(ImageInput.of(image));
+            }
+            predictor.predictBatch(batch);
+        }
+        log.info("Ran {} warmup inferences and one batch of {}", inferences, batchSize);
+    }
+
+    // Classes already answered locally are just touched; the rest are looked up at the pace the
+    // Spoonacular rate limit allows, until the budget runs out. Whatever is left is looked up
+    // on demand as usual, so the budget only bounds how long the instance stays unready.
+    private void primeFoodInfo() throws IOException, InterruptedException {
+        List<String> classes = classLabels.getNames();
+        long deadline = System.currentTimeMillis() + foodInfoBudgetMs;
+        int local = 0;
+        int fetched = 0;
+
+        for (String className : classes) {
+            if (foodInfoService.isAvailableLocally(className)) {
+                foodInfoService.getFoodInfo(className);
+                local++;
+                continue;
+            }
+            long wait = spoonacularClient.millisUntilPermit();
+            if (wait > deadline - System.currentTimeMillis()) {
+                continue;
+            }
+            Thread.sleep(wait);
+            foodInfoService.getFoodInfo(className);
+            fetched++;
+        }
+        log.info("Primed FoodInfo for {} of {} classes ({} local, {} from Spoonacular)",
+            local + fetched, classes.size(), local, fetched);
+    }
+
+    // A phone-sized photo, so decode subsampling and resizing run as they do for real uploads
+    static byte[] syntheticJpeg() throws IOException {
+        BufferedImage image = new BufferedImage(1024, 768, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(200, 120, 40), 1024, 768, new Color(40, 110, 60)));
+        g.fillRect(0, 0, 1024, 768);
+        g.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
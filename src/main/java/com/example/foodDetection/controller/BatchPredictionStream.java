@@ -0,0 +1,190 @@
+package com.example.foodDetection.controller;
+
+import com.example.foodDetection.prediction.ConfidencePolicy;
+import com.example.foodDetection.prediction.ImageInput;
+import com.example.foodDetection.prediction.InferenceAdmission.OverloadedException;
+import com.example.foodDetection.prediction.PredictionDecision;
+import com.example.foodDetection.prediction.PredictionPipeline;
+import com.example.foodDetection.service.EnrichmentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Response body of one batch upload. Images are pulled from the source only while one of the
+// batch's parallelism slots is free, so at most that many are held in memory, and each result
+// is written and flushed the moment its image finishes (so lines arrive out of order; use "index").
+class BatchPredictionStream implements StreamingResponseBody {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchPredictionStream.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BatchSource source;
+    private final boolean sse;
+    private final boolean enrich;
+    private final int parallelism;
+    private final ExecutorService executor;
+    private final PredictionPipeline predictionPipeline;
+    private final ConfidencePolicy confidencePolicy;
+    private final EnrichmentService enrichmentService;
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicBoolean clientGone = new AtomicBoolean();
+
+    BatchPredictionStream(BatchSource source, boolean sse, boolean enrich, int parallelism, ExecutorService executor,
+                          PredictionPipeline predictionPipeline, ConfidencePolicy confidencePolicy,
+                          EnrichmentService enrichmentService) {
+        this.source = source;
+        this.sse = sse;
+        this.enrich = enrich;
+        this.parallelism = Math.max(1, parallelism);
+        this.executor = executor;
+        this.predictionPipeline = predictionPipeline;
+        this.confidencePolicy = confidencePolicy;
+        this.enrichmentService = enrichmentService;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        Semaphore slots = new Semaphore(parallelism);
+        int count = 0;
+        String sourceError = null;
+
+        try {
+            while (!clientGone.get()) {
+                slots.acquire();
+                BatchItem item;
+                try {
+                    item = source.next();
+                } catch (IOException | RuntimeException e) {
+                    slots.release();
+                    throw e;
+                }
+                if (item == null) {
+                    slots.release();
+                    break;
+                }
+
+                int index = count++;
+                try {
+                    executor.execute(() -> {
+                        try {
+                            write(out, "result", process(index, item));
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    item.close();
+                    slots.release();
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sourceError = "Interrupted";
+        } catch (IOException | RuntimeException e) {
+            // e.g. a truncated or corrupt zip: report what was done so far instead of dropping the stream
+            log.warn("Batch upload source failed after {} images: {}", count, e.getMessage());
+            sourceError = "Could not read image " + count + ": " + e.getMessage();
+        } finally {
+            // Wait for the images still in flight before closing the stream
+            slots.acquireUninterruptibly(parallelism);
+        }
+
+        ObjectNode done = objectMapper.createObjectNode();
+        done.put("done", true);
+        done.put("images", count);
+        done.put("failed", failed.get());
+        if (sourceError != null) {
+            done.put("error", sourceError);
+        }
+        write(out, "done", done);
+    }
+
+    private ObjectNode process(int index, BatchItem item) {
+        ObjectNode line = objectMapper.createObjectNode();
+        line.put("index", index);
+        line.put("name", item.name);
+
+        if (item.error != null) {
+            failed.incrementAndGet();
+            line.put("error", item.error);
+            return line;
+        }
+
+        try (ImageInput input = item.input) {
+            PredictionDecision decision = confidencePolicy.decide(predictionPipeline.predict(input));
+            decision.writeTo(line);
+            if (enrich && !decision.isUnknown()) {
+                line.set("info", objectMapper.valueToTree(enrichmentService.enrich(decision).join()));
+            }
+        } catch (OverloadedException e) {
+            failed.incrementAndGet();
+            line.put("error", e.getMessage());
+            line.put("retryAfterSeconds", e.getRetryAfterSeconds());
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            line.put("error", e.getMessage());
+        }
+        return line;
+    }
+
+    private void write(OutputStream out, String event, ObjectNode node) {
+        if (clientGone.get()) {
+            return;
+        }
+        String json = node.toString();
+        String frame = sse ? "event: " + event + "\ndata: " + json + "\n\n" : json + "\n";
+        byte[] bytes = frame.getBytes(StandardCharsets.UTF_8);
+        try {
+            synchronized (out) {
+                out.write(bytes);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The client disconnected: stop pulling new images, let in-flight ones finish
+            clientGone.set(true);
+        }
+    }
+
+    // Supplies the batch's images one at a time; returns null when there are no more
+    interface BatchSource {
+        BatchItem next() throws IOException;
+    }
+
+    static class BatchItem {
+        final String name;
+        final ImageInput input;
+        final String error;
+
+        private BatchItem(String name, ImageInput input, String error) {
+            this.name = name;
+            this.input = input;
+            this.error = error;
+        }
+
+        static BatchItem of(String name, ImageInput input) {
+            return new BatchItem(name, input, null);
+        }
+
+        static BatchItem failed(String name, String error) {
+            return new BatchItem(name, null, error);
+        }
+
+        void close() {
+            if (input != null) {
+                input.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.foodDetection.controller;
+
+import com.example.foodDetection.controller.BatchPredictionStream.BatchItem;
+import com.example.foodDetection.controller.BatchPredictionStream.BatchSource;
+import com.example.foodDetection.prediction.ConfidencePolicy;
+import com.example.foodDetection.prediction.ImageInput;
+import com.example.foodDetection.prediction.PredictionPipeline;
+import com.example.foodDetection.prediction.UploadBuffers;
+import com.example.foodDetection.service.EnrichmentService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Batch ingestion: many images per request, predicted with bounded parallelism and streamed
+// back one result per line (NDJSON, or SSE with format=sse) as each image finishes.
+// Concurrent images from a batch are picked up together by the micro-batching scheduler.
+@RestController
+public class BatchUploadController {
+
+    @Autowired
+    private PredictionPipeline predictionPipeline;
+
+    @Autowired
+    private ConfidencePolicy confidencePolicy;
+
+    @Autowired
+    private EnrichmentService enrichmentService;
+
+    @Autowired
+    private UploadBuffers uploadBuffers;
+
+    @Value("${batch.parallelism:8}")
+    private int parallelism;
+
+    @Value("${batch.max-entry-bytes:20971520}")
+    private int maxEntryBytes;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        if (virtualThreads) {
+            executor = Executors.newVirtualThreadPerTaskExecutor();
+            return;
+        }
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "batch-prediction");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostMapping(value = "/upload/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> uploadBatch(
+            @RequestParam("images") List<MultipartFile> images,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean enrich) {
+
+        Iterator<MultipartFile> files = images.iterator();
+        BatchSource source = () -> {
+            while (files.hasNext()) {
+                MultipartFile file = files.next();
+                if (!file.isEmpty()) {
+                    return BatchItem.of(file.getOriginalFilename(), uploadBuffers.read(file));
+                }
+            }
+            return null;
+        };
+        return stream(source, format, enrich);
+    }
+
+    // A zip streamed as the raw request body; entries are read one by one, never the whole archive
+    @PostMapping(value = "/upload/batch", consumes = "application/zip")
+    public ResponseEntity<StreamingResponseBody> uploadZip(
+            InputStream body,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean enrich) {
+
+        ZipInputStream zip = new ZipInputStream(body);
+        BatchSource source = () -> {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory() || isMetadata(entry.getName())) {
+                    continue;
+                }
+                byte[] bytes = zip.readNBytes(maxEntryBytes + 1);
+                if (bytes.length > maxEntryBytes) {
+                    return BatchItem.failed(entry.getName(), "Image larger than " + maxEntryBytes + " bytes");
+                }
+                return BatchItem.of(entry.getName(), ImageInput.of(bytes));
+            }
+            return null;
+        };
+        return stream(source, format, enrich);
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(BatchSource source, String format, boolean enrich) {
+        boolean sse = "sse".equalsIgnoreCase(format);
+        BatchPredictionStream stream = new BatchPredictionStream(
+            source, sse, enrich, parallelism, executor, predictionPipeline, confidencePolicy, enrichmentService
+        );
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(sse ? MediaType.TEXT_EVENT_STREAM_VALUE : MediaType.APPLICATION_NDJSON_VALUE))
+            .body(stream);
+    }
+
+    // Skip the resource-fork and dot files macOS adds to zips
+    private static boolean isMetadata(String name) {
+        String fileName = name.substring(name.lastIndexOf('/') + 1);
+        return name.startsWith("__MACOSX/") || fileName.startsWith(".");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.foodDetection.controller;
+
+import com.example.foodDetection.jobs.JobService;
+import com.example.foodDetection.prediction.ImageInput;
+import com.example.foodDetection.prediction.UploadBuffers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+// Submit/poll API for predictions: POST /jobs answers 202 with the job id as soon as the image
+// is queued, GET /jobs/{id} reports queued, running, done (with the same fields as a batch line)
+// or failed. Results are kept for jobs.result-ttl-minutes after completion.
+@RestController
+public class JobController {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private UploadBuffers uploadBuffers;
+
+    @PostMapping(value = "/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ObjectNode> submit(
+            @RequestParam("image") MultipartFile image,
+            @RequestParam(defaultValue = "false") boolean enrich,
+            @RequestParam(required = false) String callbackUrl) throws IOException {
+
+        if (!jobService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (image.isEmpty()) {
+            return ResponseEntity.badRequest().body(error("No image uploaded"));
+        }
+        if (!jobService.acceptsCallback(callbackUrl)) {
+            return ResponseEntity.badRequest().body(error("Callbacks are disabled or the URL is not http(s)"));
+        }
+
+        String id;
+        try (ImageInput input = uploadBuffers.read(image)) {
+            id = jobService.submit(input, enrich, callbackUrl);
+        }
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("id", id);
+        body.put("status", JobService.QUEUED);
+        return ResponseEntity.accepted()
+            .header(HttpHeaders.LOCATION, "/jobs/" + id)
+            .body(body);
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ObjectNode> status(@PathVariable String id) {
+        ObjectNode status = jobService.isEnabled() ? jobService.status(id) : null;
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String state = status.path("status").asText();
+        if (JobService.QUEUED.equals(state) || JobService.RUNNING.equals(state)) {
+            // A hint for pollers; predictions take well under a second once a job is running
+            return ResponseEntity.ok().header(HttpHeaders.RETRY_AFTER, "1").body(status);
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    private static ObjectNode error(String message) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("error", message);
+        return body;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.foodDetection.controller;
+
+import com.example.foodDetection.prediction.InferenceAdmission.OverloadedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+// Turns admission rejections into a cheap 503 with Retry-After instead of a rendered page
+@ControllerAdvice
+public class OverloadHandler {
+
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<String> handleOverload(OverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(e.getMessage());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.foodDetection.controller;
+
+import com.example.foodDetection.metrics.PipelineMetrics;
+import com.example.foodDetection.prediction.ConfidencePolicy;
+import com.example.foodDetection.prediction.ImageInput;
+import com.example.foodDetection.prediction.InferenceAdmission.OverloadedException;
+import com.example.foodDetection.prediction.PredictionDecision;
+import com.example.foodDetection.prediction.PredictionPipeline;
+import com.example.foodDetection.prediction.UploadBuffers;
+import com.example.foodDetection.service.DishViewCache;
+import com.example.foodDetection.service.EnrichmentService;
+import com.example.foodDetection.service.FoodInfoService.FoodInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// JSON counterpart of /upload for mobile and other API clients: the decision fields of a batch
+// line plus "info", the dish's cached DishView written out as its pre-encoded bytes.
+@RestController
+public class PredictionApiController {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionApiController.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final byte[] INFO_FIELD = ",\"info\":".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private PredictionPipeline predictionPipeline;
+
+    @Autowired
+    private ConfidencePolicy confidencePolicy;
+
+    @Autowired
+    private EnrichmentService enrichmentService;
+
+    @Autowired
+    private DishViewCache dishViewCache;
+
+    @Autowired
+    private UploadBuffers uploadBuffers;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @PostMapping(value = "/api/predict", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> predict(
+            @RequestParam("image") MultipartFile image,
+            @RequestParam(defaultValue = "true") boolean enrich) {
+
+        ObjectNode body = objectMapper.createObjectNode();
+        if (image.isEmpty()) {
+            body.put("error", "No image uploaded");
+            return json(HttpStatus.BAD_REQUEST, body.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        try {
+            PredictionDecision decision;
+            try (ImageInput input = uploadBuffers.read(image)) {
+                decision = confidencePolicy.decide(predictionPipeline.predict(input));
+            }
+            decision.writeTo(body);
+            byte[] head = objectMapper.writeValueAsBytes(body);
+            if (!enrich || decision.isUnknown()) {
+                return json(HttpStatus.OK, head);
+            }
+
+            FoodInfo foodInfo = enrichmentService.enrich(decision).join();
+            byte[] info = dishViewCache.get(decision.getFoodName(), foodInfo).getJson();
+            return json(HttpStatus.OK, withField(head, info));
+        } catch (OverloadedException e) {
+            // Answered as 503 with Retry-After by OverloadHandler
+            throw e;
+        } catch (Exception e) {
+            log.error("Error during prediction", e);
+            pipelineMetrics.error("prediction");
+            body.removeAll();
+            body.put("error", String.valueOf(e.getMessage()));
+            return json(HttpStatus.INTERNAL_SERVER_ERROR, body.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // {"decision":...} + cached bytes -> {"decision":...,"info":{...}} without re-serializing them
+    static byte[] withField(byte[] object, byte[] info) {
+        int open = object.length - 1;
+        byte[] joined = Arrays.copyOf(object, open + INFO_FIELD.length + info.length + 1);
+        System.arraycopy(INFO_FIELD, 0, joined, open, INFO_FIELD.length);
+        System.arraycopy(info, 0, joined, open + INFO_FIELD.length, info.length);
+        joined[joined.length - 1] = '}';
+        return joined;
+    }
+
+    private static ResponseEntity<byte[]> json(HttpStatus status, byte[] body) {
+        return ResponseEntity.status(status)
+            .contentType(MediaType.APPLICATION_JSON)
+            .contentLength(body.length)
+            .body(body);
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.foodDetection.jobs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Durable append-only queue of submitted jobs, kept as memory-mapped segment files of
+// segment-bytes each (segment-<first seq>.log). A record is [length][crc][payload] with the
+// image bytes inline; the length goes in last, and a record whose crc does not match is a write
+// torn by a crash and marks the end of its segment. Completion is not written here: the
+// caller passes the sequence numbers it has results for to recover(), and a segment is deleted
+// once every job in it has completed.
+final class JobQueue implements AutoCloseable {
+
+    private static final int MAGIC = 0x4A4F4251; // "JOBQ"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final boolean sync;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment active;
+    private long nextSeq;
+
+    JobQueue(Path dir, int segmentBytes, boolean sync) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.sync = sync;
+    }
+
+    // Maps the segments left by the previous run and returns its jobs that have no result yet,
+    // oldest first. minNextSeq keeps sequence numbers above any the caller has seen.
+    synchronized List<QueuedJob> recover(Set<Long> completed, long minNextSeq) throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing.filter(file -> file.getFileName().toString().matches("segment-\\d+\\.log"))
+                .sorted().toList();
+        }
+
+        nextSeq = minNextSeq;
+        List<QueuedJob> pending = new ArrayList<>();
+        for (Path file : files) {
+            Segment segment = Segment.open(file);
+            List<QueuedJob> jobs = segment.scan();
+            for (QueuedJob job : jobs) {
+                nextSeq = Math.max(nextSeq, job.seq + 1);
+                if (!completed.contains(job.seq)) {
+                    segment.live++;
+                    pending.add(job);
+                }
+            }
+            if (segment.live == 0) {
+                segment.delete();
+            } else {
+                segments.put(jobs.get(0).seq, segment);
+            }
+        }
+        return pending;
+    }
+
+    synchronized QueuedJob append(String id, long submittedAt, boolean enrich, String callbackUrl,
+                                  byte[] image, int imageLength) throws IOException {
+        long seq = nextSeq++;
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] callbackBytes = callbackUrl == null ? new byte[0] : callbackUrl.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = 8 + 8 + 4 + idBytes.length + 1 + 4 + callbackBytes.length + 4 + imageLength;
+        int recordLength = RECORD_HEADER_BYTES + payloadLength;
+
+        if (active == null || active.remaining() < recordLength) {
+            // One oversized image gets a segment of its own rather than failing
+            roll(seq, Math.max(segmentBytes, HEADER_BYTES + recordLength));
+        }
+
+        int position = active.writePosition;
+        ByteBuffer payload = active.buffer.duplicate().position(position + RECORD_HEADER_BYTES);
+        payload.putLong(seq);
+        payload.putLong(submittedAt);
+        payload.putInt(idBytes.length).put(idBytes);
+        payload.put((byte) (enrich ? 1 : 0));
+        payload.putInt(callbackBytes.length).put(callbackBytes);
+        payload.putInt(imageLength);
+        int imageOffset = payload.position();
+        payload.put(image, 0, imageLength);
+
+        CRC32C crc = new CRC32C();
+        crc.update(active.buffer.slice(position + RECORD_HEADER_BYTES, payloadLength));
+        active.buffer.putInt(position + 4, (int) crc.getValue());
+        active.buffer.putInt(position, payloadLength);
+        if (sync) {
+            active.buffer.force(position, recordLength);
+        }
+
+        active.writePosition += recordLength;
+        active.live++;
+        return new QueuedJob(seq, id, submittedAt, enrich, callbackUrl, active, imageOffset, imageLength);
+    }
+
+    // The mapped bytes are read once, when a worker picks the job up
+    byte[] readImage(QueuedJob job) {
+        byte[] image = new byte[job.imageLength];
+        job.segment.buffer.get(job.imageOffset, image);
+        return image;
+    }
+
+    synchronized void complete(QueuedJob job) throws IOException {
+        Segment segment = job.segment;
+        if (--segment.live == 0 && segment != active) {
+            segments.values().remove(segment);
+            segment.delete();
+        }
+    }
+
+    // Sequence number of the oldest job that may still be pending; results of older jobs are
+    // no longer needed to tell what to replay
+    synchronized long getOldestSeq() {
+        return segments.isEmpty() ? nextSeq : segments.firstKey();
+    }
+
+    synchronized long getMappedBytes() {
+        long bytes = 0;
+        for (Segment segment : segments.values()) {
+            bytes += segment.buffer.capacity();
+        }
+        return bytes;
+    }
+
+    private void roll(long firstSeq, int size) throws IOException {
+        if (active != null && active.live == 0) {
+            segments.values().remove(active);
+            active.delete();
+        }
+        Path file = dir.resolve(String.format("segment-%020d.log", firstSeq));
+        active = Segment.create(file, size);
+        segments.put(firstSeq, active);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            if (sync) {
+                segment.buffer.force();
+            }
+            segment.channel.close();
+        }
+        segments.clear();
+        active = null;
+    }
+
+    static final class QueuedJob {
+        final long seq;
+        final String id;
+        final long submittedAt;
+        final boolean enrich;
+        final String callbackUrl;
+        private final Segment segment;
+        private final int imageOffset;
+        private final int imageLength;
+
+        private QueuedJob(long seq, String id, long submittedAt, boolean enrich, String callbackUrl,
+                          Segment segment, int imageOffset, int imageLength) {
+            this.seq = seq;
+            this.id = id;
+            this.submittedAt = submittedAt;
+            this.enrich = enrich;
+            this.callbackUrl = callbackUrl;
+            this.segment = segment;
+            this.imageOffset = imageOffset;
+            this.imageLength = imageLength;
+        }
+
+        int getImageLength() {
+            return imageLength;
+        }
+    }
+
+    private static final class Segment {
+        final Path file;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int writePosition = HEADER_BYTES;
+        int live;
+
+        private Segment(Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        // The file is created at full size; the unwritten tail reads as zeros, i.e. length 0
+        static Segment create(Path file, int size) throws IOException {
+            FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            return new Segment(file, channel, buffer);
+        }
+
+        static Segment open(Path file) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                channel.close();
+                throw new IOException(file + " is not a job queue segment");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                channel.close();
+                throw new IOException("Unsupported job queue version " + buffer.getInt(4) + " in " + file);
+            }
+            return new Segment(file, channel, buffer);
+        }
+
+        List<QueuedJob> scan() {
+            List<QueuedJob> jobs = new ArrayList<>();
+            int position = HEADER_BYTES;
+            while (position + RECORD_HEADER_BYTES <= buffer.capacity()) {
+                int payloadLength = buffer.getInt(position);
+                if (payloadLength <= 0 || position + RECORD_HEADER_BYTES + payloadLength > buffer.capacity()) {
+                    break;
+                }
+                CRC32C crc = new CRC32C();
+                crc.update(buffer.slice(position + RECORD_HEADER_BYTES, payloadLength));
+                if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                    break;
+                }
+
+                ByteBuffer payload = buffer.duplicate().position(position + RECORD_HEADER_BYTES);
+                long seq = payload.getLong();
+                long submittedAt = payload.getLong();
+                String id = readString(payload);
+                boolean enrich = payload.get() != 0;
+                String callbackUrl = readString(payload);
+                int imageLength = payload.getInt();
+                jobs.add(new QueuedJob(seq, id, submittedAt, enrich, callbackUrl.isEmpty() ? null : callbackUrl,
+                    this, payload.position(), imageLength));
+                position += RECORD_HEADER_BYTES + payloadLength;
+            }
+            writePosition = position;
+            return jobs;
+        }
+
+        int remaining() {
+            return buffer.capacity() - writePosition;
+        }
+
+        void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+
+        private static String readString(ByteBuffer payload) {
+            byte[] bytes = new byte[payload.getInt()];
+            payload.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
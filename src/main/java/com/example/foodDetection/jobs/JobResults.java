@@ -0,0 +1,160 @@
+package com.example.foodDetection.jobs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Finished jobs by id, appended to results.log as one JSON line each and kept for ttl after
+// completion. The log is also the queue's record of what has run: a job is replayed after a
+// restart only if it has no line here. Lines are dropped when the log is compacted, once they
+// have expired and their job is older than any segment the queue still holds.
+final class JobResults implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(JobResults.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final long MIN_COMPACTION_GROWTH = 1024 * 1024;
+
+    private final Path file;
+    private final long ttlMillis;
+    private final boolean sync;
+    private final Map<String, ObjectNode> results = new ConcurrentHashMap<>();
+    private FileChannel channel;
+    private long loggedBytes;
+    // Log size right after the last compaction (or at startup)
+    private long compactedBytes;
+    private int compactions;
+
+    JobResults(Path file, long ttlMillis, boolean sync) {
+        this.file = file;
+        this.ttlMillis = ttlMillis;
+        this.sync = sync;
+    }
+
+    // Loads the previous run's results; returns the sequence numbers of every job in the log
+    synchronized Set<Long> recover(long now) throws IOException {
+        Set<Long> completed = new HashSet<>();
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    ObjectNode result;
+                    try {
+                        result = (ObjectNode) objectMapper.readTree(line);
+                    } catch (IOException | ClassCastException e) {
+                        // The last line of a log cut short by a crash
+                        log.warn("Skipping unreadable line in {}", file);
+                        continue;
+                    }
+                    completed.add(result.path("seq").asLong());
+                    if (!isExpired(result, now)) {
+                        results.put(result.path("id").asText(), result);
+                    }
+                }
+            }
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        loggedBytes = channel.size();
+        compactedBytes = loggedBytes;
+        return completed;
+    }
+
+    synchronized void put(ObjectNode result) throws IOException {
+        byte[] line = (result.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+        loggedBytes += line.length;
+        results.put(result.path("id").asText(), result);
+    }
+
+    // Kept in memory only, for answers that could not be logged; they expire like the others
+    void remember(ObjectNode result) {
+        results.put(result.path("id").asText(), result);
+    }
+
+    ObjectNode get(String id, long now) {
+        ObjectNode result = results.get(id);
+        return result == null || isExpired(result, now) ? null : result;
+    }
+
+    int size() {
+        return results.size();
+    }
+
+    // Forgets expired results, and rewrites the log without them once it has doubled (by at least
+    // 1 MB) since the last rewrite, so compaction costs stay proportional to what was appended
+    synchronized void expire(long now, long oldestQueuedSeq) throws IOException {
+        results.values().removeIf(result -> isExpired(result, now));
+        if (loggedBytes - compactedBytes > Math.max(compactedBytes, MIN_COMPACTION_GROWTH)) {
+            compact(now, oldestQueuedSeq);
+        }
+    }
+
+    int getCompactions() {
+        return compactions;
+    }
+
+    private void compact(long now, long oldestQueuedSeq) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        long kept = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                ObjectNode result;
+                try {
+                    result = (ObjectNode) objectMapper.readTree(line);
+                } catch (IOException | ClassCastException e) {
+                    continue;
+                }
+                if (!isExpired(result, now) || result.path("seq").asLong() >= oldestQueuedSeq) {
+                    out.write(line);
+                    out.write('\n');
+                    kept += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                }
+            }
+        }
+        // Write then rename so a crash mid-compaction leaves the full log in place
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        log.debug("Compacted {} from {} to {} bytes", file, loggedBytes, kept);
+        loggedBytes = kept;
+        compactedBytes = kept;
+        compactions++;
+    }
+
+    private boolean isExpired(ObjectNode result, long now) {
+        return result.path("completedAt").asLong() + ttlMillis < now;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.foodDetection.jobs;
+
+import com.example.foodDetection.jobs.JobQueue.QueuedJob;
+import com.example.foodDetection.prediction.ConfidencePolicy;
+import com.example.foodDetection.prediction.ImageInput;
+import com.example.foodDetection.prediction.InferenceAdmission.OverloadedException;
+import com.example.foodDetection.prediction.PredictionDecision;
+import com.example.foodDetection.prediction.PredictionPipeline;
+import com.example.foodDetection.service.EnrichmentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Asynchronous predictions: submit() appends the image to the durable JobQueue and returns at
+// once; a fixed set of workers drains the queue through the same pipeline as /upload, so their
+// concurrent predictions are batched together with everyone else's, and each result lands in
+// JobResults for polling (and is optionally POSTed to a callback URL). Jobs still queued or
+// running when the process stops are replayed on the next start, so a result may be computed
+// twice but is never lost. At most max-pending jobs wait at a time; past that, submit() is
+// rejected as overloaded and the client retries later. Off unless jobs.enabled is set, since the
+// queue maps segment-bytes of disk under jobs.dir as soon as the application starts.
+@Component
+public class JobService {
+
+    private static final Logger log = LoggerFactory.getLogger(JobService.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static final String QUEUED = "queued";
+    public static final String RUNNING = "running";
+    public static final String DONE = "done";
+    public static final String FAILED = "failed";
+
+    @Autowired
+    private PredictionPipeline predictionPipeline;
+
+    @Autowired
+    private ConfidencePolicy confidencePolicy;
+
+    @Autowired
+    private EnrichmentService enrichmentService;
+
+    @Value("${jobs.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jobs.dir:jobs}")
+    private String dir;
+
+    @Value("${jobs.segment-bytes:67108864}")
+    private int segmentBytes;
+
+    @Value("${jobs.sync:true}")
+    private boolean sync;
+
+    @Value("${jobs.workers:4}")
+    private int workers;
+
+    @Value("${jobs.max-pending:1000}")
+    private int maxPending;
+
+    @Value("${jobs.retry-after-seconds:5}")
+    private int retryAfterSeconds;
+
+    @Value("${jobs.result-ttl-minutes:60}")
+    private long resultTtlMinutes;
+
+    @Value("${jobs.callbacks.enabled:false}")
+    private boolean callbacksEnabled;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final BlockingQueue<QueuedJob> pending = new LinkedBlockingQueue<>();
+    private final Map<String, QueuedJob> unfinished = new ConcurrentHashMap<>();
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private JobQueue queue;
+    private JobResults results;
+    private ExecutorService executor;
+    private ScheduledExecutorService expirer;
+    private HttpClient callbackClient;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        queue = new JobQueue(Path.of(dir), segmentBytes, sync);
+        results = new JobResults(Path.of(dir, "results.log"), TimeUnit.MINUTES.toMillis(resultTtlMinutes), sync);
+        try {
+            Set<Long> done = results.recover(now);
+            long nextSeq = done.isEmpty() ? 0 : Collections.max(done) + 1;
+            List<QueuedJob> replay = queue.recover(done, nextSeq);
+            for (QueuedJob job : replay) {
+                unfinished.put(job.id, job);
+                pending.add(job);
+            }
+            log.info("Job queue in {}: {} jobs to replay, {} results kept", dir, replay.size(), results.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the job queue in " + dir, e);
+        }
+
+        if (virtualThreads) {
+            executor = Executors.newVirtualThreadPerTaskExecutor();
+        } else {
+            executor = Executors.newFixedThreadPool(workers, runnable -> {
+                Thread thread = new Thread(runnable, "job-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::work);
+        }
+
+        expirer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-results-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expirer.scheduleWithFixedDelay(this::expire, 1, 1, TimeUnit.MINUTES);
+
+        if (callbacksEnabled) {
+            callbackClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        }
+    }
+
+    // Returns the new job's id once its image is in the queue
+    public String submit(ImageInput image, boolean enrich, String callbackUrl) throws IOException {
+        if (unfinished.size() >= maxPending) {
+            throw new OverloadedException(retryAfterSeconds);
+        }
+        byte[] bytes;
+        int length;
+        if (image.isInMemory()) {
+            bytes = image.getBuffer();
+            length = image.getLength();
+        } else {
+            try (InputStream in = image.openStream()) {
+                bytes = in.readAllBytes();
+            }
+            length = bytes.length;
+        }
+
+        String id = UUID.randomUUID().toString();
+        QueuedJob job = queue.append(id, System.currentTimeMillis(), enrich, callbackUrl, bytes, length);
+        unfinished.put(id, job);
+        pending.add(job);
+        return id;
+    }
+
+    // Null once the job is unknown or its result has expired
+    public ObjectNode status(String id) {
+        ObjectNode result = results.get(id, System.currentTimeMillis());
+        if (result != null) {
+            ObjectNode status = result.deepCopy();
+            status.remove("seq");
+            return status;
+        }
+        QueuedJob job = unfinished.get(id);
+        if (job == null) {
+            return null;
+        }
+        ObjectNode status = objectMapper.createObjectNode();
+        status.put("id", id);
+        status.put("status", running.contains(id) ? RUNNING : QUEUED);
+        status.put("submittedAt", job.submittedAt);
+        return status;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Callbacks are off unless configured, since they let clients make this server call any URL
+    public boolean acceptsCallback(String callbackUrl) {
+        if (callbackUrl == null) {
+            return true;
+        }
+        if (!callbacksEnabled) {
+            return false;
+        }
+        try {
+            String scheme = URI.create(callbackUrl).getScheme();
+            return "http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public int getPending() { return unfinished.size(); }
+    public int getRunning() { return running.size(); }
+    public long getCompleted() { return completed.get(); }
+    public long getFailed() { return failed.get(); }
+    public int getResults() { return enabled ? results.size() : 0; }
+    public long getQueueBytes() { return enabled ? queue.getMappedBytes() : 0; }
+
+    private void work() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                QueuedJob job = pending.take();
+                running.add(job.id);
+                try {
+                    finish(job, run(job));
+                } finally {
+                    running.remove(job.id);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Shutting down: whatever was running has no result yet and is replayed on the next start
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void finish(QueuedJob job, ObjectNode result) {
+        try {
+            results.put(result);
+        } catch (IOException e) {
+            // Not durable: report the job failed for now, but keep it in the queue so the next start
+            // replays it; it must not sit in "unfinished" holding a max-pending slot meanwhile
+            log.error("Could not record the result of job {}", job.id, e);
+            ObjectNode failure = objectMapper.createObjectNode();
+            failure.put("id", job.id);
+            failure.put("seq", job.seq);
+            failure.put("submittedAt", job.submittedAt);
+            failure.put("status", FAILED);
+            failure.put("error", "Could not store the result: " + e.getMessage());
+            failure.put("completedAt", System.currentTimeMillis());
+            results.remember(failure);
+            failed.incrementAndGet();
+            unfinished.remove(job.id);
+            return;
+        }
+
+        try {
+            queue.complete(job);
+        } catch (IOException e) {
+            log.warn("Could not release the queue segment of job {}: {}", job.id, e.getMessage());
+        }
+        unfinished.remove(job.id);
+        notifyCallback(job, result);
+    }
+
+    private ObjectNode run(QueuedJob job) throws InterruptedException {
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("id", job.id);
+        result.put("seq", job.seq);
+        result.put("submittedAt", job.submittedAt);
+
+        while (true) {
+            try (ImageInput input = ImageInput.of(queue.readImage(job))) {
+                PredictionDecision decision = confidencePolicy.decide(predictionPipeline.predict(input));
+                result.put("status", DONE);
+                decision.writeTo(result);
+                if (job.enrich && !decision.isUnknown()) {
+                    result.set("info", objectMapper.valueToTree(enrichmentService.enrich(decision).join()));
+                }
+                completed.incrementAndGet();
+                break;
+            } catch (OverloadedException e) {
+                // Interactive uploads hold every inference slot: wait instead of failing the job
+                TimeUnit.SECONDS.sleep(e.getRetryAfterSeconds());
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Interrupted while running job " + job.id);
+                }
+                // Not retried: an image the engine cannot read fails the same way every time
+                log.warn("Job {} failed: {}", job.id, e.getMessage());
+                failed.incrementAndGet();
+                result.put("status", FAILED);
+                result.put("error", e.getMessage());
+                break;
+            }
+        }
+        result.put("completedAt", System.currentTimeMillis());
+        return result;
+    }
+
+    private void notifyCallback(QueuedJob job, ObjectNode result) {
+        if (job.callbackUrl == null || callbackClient == null) {
+            return;
+        }
+        ObjectNode body = result.deepCopy();
+        body.remove("seq");
+        HttpRequest request = HttpRequest.newBuilder(URI.create(job.callbackUrl))
+            .timeout(Duration.ofSeconds(10))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+            .build();
+        // Best effort and fire-and-forget: the result can always be polled
+        callbackClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, e) -> {
+                if (e != null || response.statusCode() >= 300) {
+                    log.warn("Callback for job {} to {} failed: {}", job.id, job.callbackUrl,
+                        e != null ? e.toString() : "HTTP " + response.statusCode());
+                }
+            });
+    }
+
+    private void expire() {
+        try {
+            results.expire(System.currentTimeMillis(), queue.getOldestSeq());
+        } catch (IOException e) {
+            log.warn("Could not compact job results: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        expirer.shutdownNow();
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        queue.close();
+        results.close();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.foodDetection.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class MetricsWebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private RenderTimingInterceptor renderTimingInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(renderTimingInterceptor);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.foodDetection.metrics;
+
+import com.example.foodDetection.jobs.JobService;
+import com.example.foodDetection.prediction.InferenceAdmission;
+import com.example.foodDetection.prediction.NearDuplicateIndex;
+import com.example.foodDetection.prediction.PredictionCache;
+import com.example.foodDetection.prediction.PredictionScheduler;
+import com.example.foodDetection.prediction.PythonWorkerPool;
+import com.example.foodDetection.prediction.UploadBuffers;
+import com.example.foodDetection.service.DishKnowledgeStore;
+import com.example.foodDetection.service.DishViewCache;
+import com.example.foodDetection.service.FoodInfoCache;
+import com.example.foodDetection.service.SpoonacularClient;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.function.ToDoubleFunction;
+
+// Publishes the counters and sizes the components already keep as gauges and function
+// counters, read only when Prometheus scrapes, so nothing extra runs on the request path.
+@Component
+public class PipelineGauges implements MeterBinder {
+
+    @Autowired
+    private PythonWorkerPool pythonWorkerPool;
+
+    @Autowired
+    private PredictionScheduler predictionScheduler;
+
+    @Autowired
+    private InferenceAdmission inferenceAdmission;
+
+    @Autowired
+    private UploadBuffers uploadBuffers;
+
+    @Autowired
+    private PredictionCache predictionCache;
+
+    @Autowired
+    private NearDuplicateIndex nearDuplicateIndex;
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private FoodInfoCache foodInfoCache;
+
+    @Autowired
+    private DishViewCache dishViewCache;
+
+    @Autowired
+    private DishKnowledgeStore dishStore;
+
+    @Autowired
+    private SpoonacularClient spoonacularClient;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("dishdetect.predictor.pool.size", pythonWorkerPool, PythonWorkerPool::getPoolSize)
+            .description("Configured number of Python predictor workers")
+            .register(registry);
+        Gauge.builder("dishdetect.predictor.pool.live", pythonWorkerPool, PythonWorkerPool::getLiveWorkers)
+            .description("Python predictor workers started and not yet replaced")
+            .register(registry);
+        Gauge.builder("dishdetect.predictor.pool.busy", pythonWorkerPool,
+                pool -> Math.max(0, pool.getLiveWorkers() - pool.getIdleWorkers()))
+            .description("Python predictor workers running a request")
+            .register(registry);
+        Gauge.builder("dishdetect.predictor.queue.depth", predictionScheduler, PredictionScheduler::getQueueDepth)
+            .description("Predictions waiting to be batched")
+            .register(registry);
+
+        Gauge.builder("dishdetect.admission.in_flight", inferenceAdmission, InferenceAdmission::getInFlight)
+            .register(registry);
+        Gauge.builder("dishdetect.admission.max", inferenceAdmission, InferenceAdmission::getMaxConcurrent)
+            .register(registry);
+        FunctionCounter.builder("dishdetect.admission.rejected", inferenceAdmission, InferenceAdmission::getRejected)
+            .description("Predictions rejected with 503 because every slot was busy")
+            .register(registry);
+
+        Gauge.builder("dishdetect.upload.buffers.free", uploadBuffers, UploadBuffers::getFreeBuffers)
+            .register(registry);
+        FunctionCounter.builder("dishdetect.upload.spills", uploadBuffers, UploadBuffers::getSpills)
+            .description("Uploads written to a temp file instead of a pooled buffer")
+            .register(registry);
+
+        Gauge.builder("dishdetect.jobs.pending", jobService, JobService::getPending)
+            .description("Submitted jobs without a result yet, running ones included")
+            .register(registry);
+        Gauge.builder("dishdetect.jobs.running", jobService, JobService::getRunning)
+            .register(registry);
+        Gauge.builder("dishdetect.jobs.results", jobService, JobService::getResults)
+            .description("Job results kept for polling")
+            .register(registry);
+        Gauge.builder("dishdetect.jobs.queue.bytes", jobService, JobService::getQueueBytes)
+            .description("Size of the job queue segments on disk")
+            .register(registry);
+        FunctionCounter.builder("dishdetect.jobs.finished", jobService, JobService::getCompleted)
+            .tag("status", "done")
+            .register(registry);
+        FunctionCounter.builder("dishdetect.jobs.finished", jobService, JobService::getFailed)
+            .tag("status", "failed")
+            .register(registry);
+
+        cache(registry, "prediction", "hit", predictionCache, PredictionCache::getHits);
+        cache(registry, "prediction", "miss", predictionCache, PredictionCache::getMisses);
+        FunctionCounter.builder("dishdetect.cache.evictions", predictionCache, PredictionCache::getEvictions)
+            .tag("cache", "prediction")
+            .register(registry);
+        Gauge.builder("dishdetect.cache.size", predictionCache, PredictionCache::size)
+            .tag("cache", "prediction")
+            .register(registry);
+        cache(registry, "near_duplicate", "hit", nearDuplicateIndex, NearDuplicateIndex::getHits);
+        cache(registry, "near_duplicate", "miss", nearDuplicateIndex, NearDuplicateIndex::getMisses);
+        FunctionCounter.builder("dishdetect.cache.evictions", nearDuplicateIndex, NearDuplicateIndex::getEvictions)
+            .tag("cache", "near_duplicate")
+            .register(registry);
+        Gauge.builder("dishdetect.cache.size", nearDuplicateIndex, NearDuplicateIndex::size)
+            .tag("cache", "near_duplicate")
+            .register(registry);
+        cache(registry, "food_info", "hit", foodInfoCache, FoodInfoCache::getHits);
+        cache(registry, "food_info", "stale", foodInfoCache, FoodInfoCache::getStaleHits);
+        cache(registry, "food_info", "miss", foodInfoCache, FoodInfoCache::getMisses);
+        cache(registry, "dish_view", "hit", dishViewCache, DishViewCache::getHits);
+        cache(registry, "dish_view", "miss", dishViewCache, DishViewCache::getMisses);
+        Gauge.builder("dishdetect.cache.size", dishViewCache, DishViewCache::size)
+            .tag("cache", "dish_view")
+            .register(registry);
+        Gauge.builder("dishdetect.dish_store.size", dishStore, DishKnowledgeStore::size)
+            .register(registry);
+
+        // NaN until the first response carrying quota headers
+        Gauge.builder("dishdetect.spoonacular.quota.left", spoonacularClient, SpoonacularClient::getQuotaLeft)
+            .register(registry);
+        Gauge.builder("dishdetect.spoonacular.quota.used", spoonacularClient, SpoonacularClient::getQuotaUsed)
+            .register(registry);
+        FunctionCounter.builder("dishdetect.spoonacular.calls", spoonacularClient, SpoonacularClient::getCalls)
+            .register(registry);
+        FunctionCounter.builder("dishdetect.spoonacular.refused", spoonacularClient,
+                SpoonacularClient::getRateLimited)
+            .tag("reason", "rate_limited")
+            .register(registry);
+        FunctionCounter.builder("dishdetect.spoonacular.refused", spoonacularClient,
+                SpoonacularClient::getShortCircuited)
+            .tag("reason", "circuit_open")
+            .register(registry);
+        // One series per state, 1 for the current one
+        for (String state : SpoonacularClient.CIRCUIT_STATES) {
+            Gauge.builder("dishdetect.spoonacular.circuit.state", spoonacularClient,
+                    client -> client.getCircuitState().equals(state) ? 1 : 0)
+                .tag("state", state.toLowerCase(Locale.ROOT))
+                .register(registry);
+        }
+    }
+
+    private static <T> void cache(MeterRegistry registry, String cache, String result, T source,
+                                  ToDoubleFunction<T> count) {
+        FunctionCounter.builder("dishdetect.cache.requests", source, count)
+            .tag("cache", cache)
+            .tag("result", result)
+            .register(registry);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.foodDetection.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Timers and counters for the request path. Every stage reports into the one dishdetect.stage
+// timer, tagged by stage, with a percentile histogram so p95/p99 can be aggregated across
+// instances in Prometheus instead of being averaged away.
+@Component
+public class PipelineMetrics {
+
+    public static final String UPLOAD = "upload";
+    public static final String HASH = "hash";
+    public static final String PREDICT = "predict";
+    public static final String PREPROCESS = "preprocess";
+    public static final String INFERENCE = "inference";
+    public static final String PARSE = "parse";
+    public static final String SPOONACULAR = "spoonacular";
+    public static final String RENDER = "render";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public Timer stage(String stage) {
+        return timers.computeIfAbsent(stage, name -> Timer.builder("dishdetect.stage")
+            .description("Time spent in one stage of handling an upload")
+            .tag("stage", name)
+            .publishPercentileHistogram()
+            .register(meterRegistry));
+    }
+
+    // Requests answered with fallback food info, by why the real lookup did not happen
+    public void fallback(String reason) {
+        meterRegistry.counter("dishdetect.food_info.fallbacks", "reason", reason).increment();
+    }
+
+    public void error(String stage) {
+        meterRegistry.counter("dishdetect.errors", "stage", stage).increment();
+    }
+}
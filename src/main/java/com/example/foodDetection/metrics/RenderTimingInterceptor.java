@@ -0,0 +1,37 @@
+package com.example.foodDetection.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.concurrent.TimeUnit;
+
+// Times Thymeleaf rendering: postHandle runs right before the view renders, afterCompletion
+// right after. Requests without a view (REST, streaming, errors) are not recorded.
+@Component
+public class RenderTimingInterceptor implements HandlerInterceptor {
+
+    private static final String RENDER_START = RenderTimingInterceptor.class.getName() + ".start";
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (modelAndView != null && modelAndView.hasView()) {
+            request.setAttribute(RENDER_START, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(RENDER_START) instanceof Long start) {
+            pipelineMetrics.stage(PipelineMetrics.RENDER).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.foodDetection.prediction;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+// Class names in model output order, read from the same file predict_spring.py uses
+@Component
+public class ClassLabels {
+
+    @Value("${predictor.class-names-file:food41_classes.json}")
+    private String classNamesFile;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile List<String> names;
+
+    public List<String> getNames() throws IOException {
+        List<String> loaded = names;
+        if (loaded == null) {
+            synchronized (this) {
+                if (names == null) {
+                    names = List.copyOf(objectMapper.readValue(
+                        Path.of(classNamesFile).toFile(), new TypeReference<List<String>>() {}
+                    ));
+                }
+                loaded = names;
+            }
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.foodDetection.prediction;
+
+import com.example.foodDetection.prediction.PredictionDecision.Candidate;
+import com.example.foodDetection.prediction.PredictionDecision.Outcome;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Decision stage after inference. At or above the accept threshold the top-1 class is the answer;
+// below the floor the answer is "unknown"; in between, the candidates are the fewest top classes
+// that together reach the coverage probability (adaptive top-k, never below min-confidence each).
+// Thresholds are probabilities (0..1); classes that are often confused or rarely wrong can get
+// their own in decision.class-thresholds-file, e.g. {"steak": {"accept": 0.8, "floor": 0.3}}.
+@Component
+public class ConfidencePolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfidencePolicy.class);
+
+    @Value("${decision.accept:0.6}")
+    private double accept;
+
+    @Value("${decision.floor:0.2}")
+    private double floor;
+
+    @Value("${decision.candidates.coverage:0.9}")
+    private double coverage;
+
+    @Value("${decision.candidates.max:5}")
+    private int maxCandidates;
+
+    @Value("${decision.candidates.min-confidence:0.05}")
+    private double minCandidateConfidence;
+
+    @Value("${decision.class-thresholds-file:}")
+    private String classThresholdsFile;
+
+    private Map<String, Thresholds> classThresholds = Map.of();
+
+    @PostConstruct
+    public void init() {
+        if (classThresholdsFile == null || classThresholdsFile.isBlank()) {
+            return;
+        }
+        try {
+            Map<String, Thresholds> loaded = new ObjectMapper().readValue(
+                Path.of(classThresholdsFile).toFile(), new TypeReference<Map<String, Thresholds>>() {}
+            );
+            setClassThresholds(loaded);
+            log.info("Loaded confidence thresholds for {} classes from {}", loaded.size(), classThresholdsFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load class thresholds " + classThresholdsFile, e);
+        }
+    }
+
+    public PredictionDecision decide(PredictionResult result) {
+        String className = result.getFoodName();
+        double top = result.getConfidence() / 100.0;
+        Thresholds thresholds = classThresholds.get(normalize(className));
+        double classAccept = thresholds != null && thresholds.accept != null ? thresholds.accept : accept;
+        double classFloor = thresholds != null && thresholds.floor != null ? thresholds.floor : floor;
+
+        if (top >= classAccept) {
+            return new PredictionDecision(Outcome.CONFIDENT, className, result.getConfidence(),
+                List.of(new Candidate(className, result.getConfidence())));
+        }
+        if (top < classFloor) {
+            return new PredictionDecision(Outcome.UNKNOWN, className, result.getConfidence(), List.of());
+        }
+
+        List<String> names = result.getTopClasses();
+        List<Double> confidences = result.getTopConfidences();
+        List<Candidate> candidates = new ArrayList<>(maxCandidates);
+        candidates.add(new Candidate(className, result.getConfidence()));
+        double covered = top;
+        // Results cached before per-class confidences existed only know their top-1
+        for (int i = 1; i < Math.min(names.size(), confidences.size()) && candidates.size() < maxCandidates; i++) {
+            double confidence = confidences.get(i) / 100.0;
+            if (covered >= coverage || confidence < minCandidateConfidence) {
+                break;
+            }
+            candidates.add(new Candidate(names.get(i), confidences.get(i)));
+            covered += confidence;
+        }
+        return new PredictionDecision(Outcome.AMBIGUOUS, className, result.getConfidence(), candidates);
+    }
+
+    void setClassThresholds(Map<String, Thresholds> byClass) {
+        Map<String, Thresholds> normalized = new HashMap<>();
+        byClass.forEach((name, thresholds) -> normalized.put(normalize(name), thresholds));
+        classThresholds = normalized;
+    }
+
+    private static String normalize(String className) {
+        return className.toLowerCase(Locale.ROOT).replace('_', ' ').trim();
+    }
+
+    // Either may be left out to use the global value
+    public static class Thresholds {
+        public Double accept;
+        public Double floor;
+    }
+}
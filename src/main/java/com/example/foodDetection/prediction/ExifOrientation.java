@@ -0,0 +1,119 @@
+package com.example.foodDetection.prediction;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// EXIF orientation of a JPEG, read from the APP1 segment ahead of the image data, and applied to a
+// decoded image the way OpenCV's imread does, so phone photos taken sideways reach the model upright.
+final class ExifOrientation {
+
+    static final int NORMAL = 1;
+
+    private static final int SOI = 0xFFD8;
+    private static final int SOS = 0xFFDA;
+    private static final int EOI = 0xFFD9;
+    private static final int APP1 = 0xFFE1;
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private ExifOrientation() {
+    }
+
+    // 1 to 8 as in the EXIF spec; NORMAL when there is no (readable) tag or the image is not a JPEG
+    static int read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        try {
+            if (data.readUnsignedShort() != SOI) {
+                return NORMAL;
+            }
+            while (true) {
+                int marker = data.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == SOS || marker == EOI) {
+                    return NORMAL;
+                }
+                int length = data.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return NORMAL;
+                }
+                if (marker == APP1) {
+                    int orientation = parseExif(data.readNBytes(length));
+                    if (orientation != 0) {
+                        return orientation;
+                    }
+                } else {
+                    data.skipNBytes(length);
+                }
+            }
+        } catch (EOFException e) {
+            return NORMAL;
+        }
+    }
+
+    // 0 when the segment is not EXIF or has no orientation in IFD0
+    static int parseExif(byte[] segment) {
+        if (segment.length < 14 || segment[0] != 'E' || segment[1] != 'x' || segment[2] != 'i'
+                || segment[3] != 'f' || segment[4] != 0 || segment[5] != 0) {
+            return 0;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(segment, 6, segment.length - 6).slice();
+        if (tiff.get(0) == 'I' && tiff.get(1) == 'I') {
+            tiff.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (tiff.get(0) != 'M' || tiff.get(1) != 'M') {
+            return 0;
+        }
+
+        long ifd = tiff.getInt(4) & 0xFFFFFFFFL;
+        if (ifd + 2 > tiff.limit()) {
+            return 0;
+        }
+        int entries = tiff.getShort((int) ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > tiff.limit()) {
+                return 0;
+            }
+            if ((tiff.getShort(entry) & 0xFFFF) == ORIENTATION_TAG) {
+                int value = tiff.getShort(entry + 8) & 0xFFFF;
+                return value >= 1 && value <= 8 ? value : 0;
+            }
+        }
+        return 0;
+    }
+
+    // Orientations 5 to 8 swap width and height
+    static BufferedImage apply(BufferedImage image, int orientation) {
+        if (orientation <= NORMAL || orientation > 8) {
+            return image;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean swap = orientation >= 5;
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage oriented = new BufferedImage(swap ? height : width, swap ? width : height, type);
+
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int dx;
+                int dy;
+                switch (orientation) {
+                    case 2 -> { dx = width - 1 - x; dy = y; }
+                    case 3 -> { dx = width - 1 - x; dy = height - 1 - y; }
+                    case 4 -> { dx = x; dy = height - 1 - y; }
+                    case 5 -> { dx = y; dy = x; }
+                    case 6 -> { dx = height - 1 - y; dy = x; }
+                    case 7 -> { dx = height - 1 - y; dy = width - 1 - x; }
+                    default -> { dx = y; dy = width - 1 - x; }
+                }
+                oriented.setRGB(dx, dy, row[x]);
+            }
+        }
+        return oriented;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.foodDetection.prediction;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// An uploaded image that is either held in memory (usually a pooled buffer) or spilled to a file,
+// or the model-ready pixels of one.
+// Closing it returns the buffer to its pool or deletes the spill file.
+public class ImageInput implements AutoCloseable {
+
+    private final byte[] buffer;
+    private final int length;
+    private final Path file;
+    private final boolean deleteOnClose;
+    private final UploadBuffers pool;
+    private final boolean preprocessed;
+    // Model-ready pixels, filled in by the first stage that decodes the image
+    private volatile byte[] pixels;
+
+    private ImageInput(byte[] buffer, int length, Path file, boolean deleteOnClose, UploadBuffers pool,
+                       boolean preprocessed) {
+        this.buffer = buffer;
+        this.length = length;
+        this.file = file;
+        this.deleteOnClose = deleteOnClose;
+        this.pool = pool;
+        this.preprocessed = preprocessed;
+    }
+
+    public static ImageInput of(byte[] bytes) {
+        return new ImageInput(bytes, bytes.length, null, false, null, false);
+    }
+
+    public static ImageInput ofFile(Path file) {
+        return new ImageInput(null, 0, file, false, null, false);
+    }
+
+    // Already decoded and resized: 224x224 HWC RGB, one byte per channel (see ImagePreprocessor)
+    public static ImageInput preprocessed(byte[] rgb) {
+        return new ImageInput(rgb, rgb.length, null, false, null, true);
+    }
+
+    static ImageInput pooled(byte[] buffer, int length, UploadBuffers pool) {
+        return new ImageInput(buffer, length, null, false, pool, false);
+    }
+
+    static ImageInput spilled(Path file) {
+        return new ImageInput(null, 0, file, true, null, false);
+    }
+
+    public boolean isInMemory() {
+        return file == null;
+    }
+
+    public boolean isPreprocessed() {
+        return preprocessed;
+    }
+
+    // Only the first getLength() bytes are valid; pooled buffers are larger than the image
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    byte[] getPixels() {
+        return pixels;
+    }
+
+    void setPixels(byte[] pixels) {
+        this.pixels = pixels;
+    }
+
+    public InputStream openStream() throws IOException {
+        return isInMemory() ? new ByteArrayInputStream(buffer, 0, length) : Files.newInputStream(file);
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.release(buffer);
+        } else if (deleteOnClose) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
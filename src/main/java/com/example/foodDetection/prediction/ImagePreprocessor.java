@@ -0,0 +1,257 @@
+package com.example.foodDetection.prediction;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+// Java port of the preprocessing in predict_spring.py: decode, RGB, resize to 224x224, float32.
+// Large photos are decoded with source subsampling straight to a little above 224 px, so a
+// 12 MP upload never materializes as a full-size raster. Resize scratch images and batch input
+// buffers are pooled, and batches are preprocessed in parallel across cores.
+@Component
+public class ImagePreprocessor {
+
+    public static final int INPUT_SIZE = 224;
+    public static final int CHANNELS = 3;
+    public static final int INPUT_LENGTH = INPUT_SIZE * INPUT_SIZE * CHANNELS;
+    // Smallest side of the thumbnail decoded when only the hash needs the pixels
+    private static final int HASH_SIZE = 32;
+
+    @Value("${preprocess.threads:0}")
+    private int threads;
+
+    @Value("${preprocess.buffer-pool.size:4}")
+    private int bufferPoolSize;
+
+    // One per core is all that can be resizing at once; extras made under a burst go to the GC
+    private final BlockingQueue<BufferedImage> scratchImages =
+        new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+    private final Map<Integer, BlockingQueue<float[]>> freeBuffers = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        int poolThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(poolThreads, runnable -> {
+            Thread thread = new Thread(runnable, "image-preprocess");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public float[] preprocess(ImageInput input) throws IOException {
+        float[] tensor = new float[INPUT_LENGTH];
+        preprocessInto(input, tensor, 0);
+        return tensor;
+    }
+
+    // Writes one image's HWC tensor into dest at offset, e.g. its slot in a batch buffer. Values are
+    // RGB in 0..255: Keras' EfficientNet preprocess_input is a pass-through because the model
+    // rescales internally, so no normalization happens here.
+    public void preprocessInto(ImageInput input, float[] dest, int offset) throws IOException {
+        byte[] rgb = toRgbBytes(input);
+        for (int i = 0; i < INPUT_LENGTH; i++) {
+            dest[offset + i] = rgb[i] & 0xff;
+        }
+    }
+
+    // The same tensor as 8-bit RGB (lossless, the values are whole numbers), a quarter the size
+    // to ship to the Python worker. Each upload is decoded once: the pixels stay on the input for
+    // the later stages (perceptual hash, then the engine).
+    public byte[] toRgbBytes(ImageInput input) throws IOException {
+        if (input.isPreprocessed()) {
+            return input.getBuffer();
+        }
+        byte[] cached = input.getPixels();
+        if (cached != null) {
+            return cached;
+        }
+
+        BufferedImage resized = resize(decode(input));
+        try {
+            int[] rgb = pixels(resized);
+            byte[] bytes = new byte[INPUT_LENGTH];
+            for (int i = 0; i < rgb.length; i++) {
+                int pixel = rgb[i];
+                bytes[i * 3] = (byte) (pixel >> 16);
+                bytes[i * 3 + 1] = (byte) (pixel >> 8);
+                bytes[i * 3 + 2] = (byte) pixel;
+            }
+            input.setPixels(bytes);
+            return bytes;
+        } finally {
+            scratchImages.offer(resized);
+        }
+    }
+
+    // 64-bit dHash of the image, for NearDuplicateIndex. With keepPixels (the engine reads the
+    // JVM's pixels) it is taken from the model-ready pixels, which stay on the input for the engine;
+    // otherwise from a thumbnail decoded with HASH_SIZE subsampling, since 9x8 cells need no more.
+    // Null for images too flat to hash reliably (see PerceptualHash).
+    public Long perceptualHash(ImageInput input, boolean keepPixels) throws IOException {
+        if (keepPixels || input.isPreprocessed() || input.getPixels() != null) {
+            return PerceptualHash.dHash(toRgbBytes(input), INPUT_SIZE, INPUT_SIZE);
+        }
+        BufferedImage thumbnail = decode(input, HASH_SIZE);
+        int width = thumbnail.getWidth();
+        int height = thumbnail.getHeight();
+        int[] argb = thumbnail.getRGB(0, 0, width, height, null, 0, width);
+        byte[] rgb = new byte[argb.length * 3];
+        for (int i = 0; i < argb.length; i++) {
+            rgb[i * 3] = (byte) (argb[i] >> 16);
+            rgb[i * 3 + 1] = (byte) (argb[i] >> 8);
+            rgb[i * 3 + 2] = (byte) argb[i];
+        }
+        return PerceptualHash.dHash(rgb, width, height);
+    }
+
+    // Preprocesses every image into its slot of dest ([n, 224, 224, 3]), one core per image
+    public void preprocessBatch(List<ImageInput> images, float[] dest) throws IOException {
+        runParallel(images.size(), i -> preprocessInto(images.get(i), dest, i * INPUT_LENGTH));
+    }
+
+    // Entries are null for images ImageIO cannot decode, so the caller can send those as-is
+    public List<byte[]> toRgbBatch(List<ImageInput> images) throws IOException {
+        byte[][] results = new byte[images.size()][];
+        runParallel(images.size(), i -> {
+            try {
+                results[i] = toRgbBytes(images.get(i));
+            } catch (IOException | RuntimeException e) {
+                results[i] = null;
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    // Input buffer for n images (every slot is overwritten); hand it back with releaseBuffer
+    // once the tensor has been built from it
+    public float[] acquireBuffer(int images) {
+        BlockingQueue<float[]> pool = freeBuffers.get(images * INPUT_LENGTH);
+        float[] buffer = pool != null ? pool.poll() : null;
+        return buffer != null ? buffer : new float[images * INPUT_LENGTH];
+    }
+
+    public void releaseBuffer(float[] buffer) {
+        // Bounded per batch size: buffers created under a burst are left to the GC
+        freeBuffers.computeIfAbsent(buffer.length, length -> new ArrayBlockingQueue<>(Math.max(1, bufferPoolSize)))
+            .offer(buffer);
+    }
+
+    // Reads only every n-th pixel and row when the photo is at least n times the model input,
+    // which is where nearly all of the decode time and memory of a phone photo goes. The EXIF
+    // orientation is applied afterwards, on the small image, as OpenCV's imread does.
+    BufferedImage decode(ImageInput input) throws IOException {
+        return decode(input, INPUT_SIZE);
+    }
+
+    private BufferedImage decode(ImageInput input, int minSize) throws IOException {
+        int orientation;
+        try (InputStream in = input.openStream()) {
+            orientation = ExifOrientation.read(in);
+        }
+        return ExifOrientation.apply(decodeSubsampled(input, minSize), orientation);
+    }
+
+    private BufferedImage decodeSubsampled(ImageInput input, int minSize) throws IOException {
+        try (InputStream in = input.openStream();
+             ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = stream != null ? ImageIO.getImageReaders(stream) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Could not read image");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int subsampling = Math.max(1, Math.min(reader.getWidth(0), reader.getHeight(0)) / minSize);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage resize(BufferedImage image) {
+        BufferedImage resized = scratchImages.poll();
+        if (resized == null) {
+            resized = new BufferedImage(INPUT_SIZE, INPUT_SIZE, BufferedImage.TYPE_INT_RGB);
+        }
+        Graphics2D g = resized.createGraphics();
+        if (image.getColorModel().hasAlpha()) {
+            // Transparent pixels blend onto black, as on a fresh image, not onto the last one drawn
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, INPUT_SIZE, INPUT_SIZE);
+        }
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, INPUT_SIZE, INPUT_SIZE, null);
+        g.dispose();
+        return resized;
+    }
+
+    // TYPE_INT_RGB rasters are backed by one int per pixel, readable without getRGB's copy
+    private static int[] pixels(BufferedImage resized) {
+        return ((DataBufferInt) resized.getRaster().getDataBuffer()).getData();
+    }
+
+    private void runParallel(int count, IndexedTask task) throws IOException {
+        if (count == 1 || executor == null) {
+            for (int i = 0; i < count; i++) {
+                task.run(i);
+            }
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                task.run(index);
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while preprocessing", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface IndexedTask {
+        void run(int index) throws IOException;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.foodDetection.prediction;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded admission for inference. Callers wait at most max-wait-ms for one of max-concurrent
+// slots and are otherwise rejected straight away, so a burst turns into quick 503s instead of
+// an unbounded queue of requests that all time out.
+@Component
+public class InferenceAdmission {
+
+    @Value("${admission.max-concurrent:32}")
+    private int maxConcurrent;
+
+    @Value("${admission.max-wait-ms:100}")
+    private long maxWaitMs;
+
+    @Value("${admission.retry-after-seconds:2}")
+    private int retryAfterSeconds;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private Semaphore slots;
+
+    @PostConstruct
+    public void init() {
+        slots = new Semaphore(maxConcurrent);
+    }
+
+    public Permit acquire() throws InterruptedException {
+        if (!slots.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+            rejected.incrementAndGet();
+            throw new OverloadedException(retryAfterSeconds);
+        }
+        return slots::release;
+    }
+
+    public int getInFlight() {
+        return maxConcurrent - slots.availablePermits();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static class OverloadedException extends RuntimeException {
+        private final int retryAfterSeconds;
+
+        public OverloadedException(int retryAfterSeconds) {
+            super("Too many concurrent predictions, retry in " + retryAfterSeconds + " s");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.foodDetection.prediction;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Predictions by perceptual hash, so a re-encoded, resized or re-shared copy of an earlier photo
+// reuses its prediction. Lookups find the nearest hash within the radius by multi-index hashing:
+// the 64 bits are cut into radius + 1 chunks, and by pigeonhole any hash within the radius matches
+// at least one chunk exactly, so only the entries sharing a chunk bucket are compared in full.
+// Entries live in fixed arrays of max-entries slots (bucket chains are int links, no per-entry
+// objects) and are evicted CLOCK-style: a slot used since the hand last passed gets a second chance.
+@Component
+public class NearDuplicateIndex {
+
+    private static final int NONE = -1;
+    private static final int MAX_BUCKET_BITS = 16;
+
+    @Value("${prediction.near-duplicate.enabled:true}")
+    private boolean enabled;
+
+    @Value("${prediction.near-duplicate.radius:6}")
+    private int radius;
+
+    @Value("${prediction.near-duplicate.max-entries:10000}")
+    private int maxEntries;
+
+    private int chunks;
+    private int[] chunkShift;
+    private long[] chunkMask;
+    private int bucketBits;
+
+    private long[] hashes;
+    private PredictionResult[] results;
+    private boolean[] referenced;
+    private int[][] heads;   // per chunk: bucket -> first slot
+    private int[][] next;    // per chunk: slot -> next slot in the same bucket
+    private int[][] prev;
+    private int size;
+    private int hand;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        radius = Math.max(0, Math.min(radius, 31));
+        chunks = radius + 1;
+        chunkShift = new int[chunks];
+        chunkMask = new long[chunks];
+        int shift = 0;
+        int widest = 0;
+        for (int i = 0; i < chunks; i++) {
+            // Spread the 64 bits as evenly as possible
+            int width = Long.SIZE / chunks + (i < Long.SIZE % chunks ? 1 : 0);
+            chunkShift[i] = shift;
+            chunkMask[i] = width == Long.SIZE ? -1L : (1L << width) - 1;
+            shift += width;
+            widest = Math.max(widest, width);
+        }
+        bucketBits = Math.min(widest, MAX_BUCKET_BITS);
+
+        int capacity = Math.max(1, maxEntries);
+        hashes = new long[capacity];
+        results = new PredictionResult[capacity];
+        referenced = new boolean[capacity];
+        heads = new int[chunks][1 << bucketBits];
+        next = new int[chunks][capacity];
+        prev = new int[chunks][capacity];
+        for (int c = 0; c < chunks; c++) {
+            Arrays.fill(heads[c], NONE);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // The prediction of the nearest stored hash within the radius, or null
+    public synchronized PredictionResult find(long hash) {
+        int best = NONE;
+        int bestDistance = radius + 1;
+        for (int c = 0; c < chunks && bestDistance > 0; c++) {
+            long chunk = chunkOf(hash, c);
+            for (int slot = heads[c][bucketOf(chunk)]; slot != NONE; slot = next[c][slot]) {
+                // Buckets can mix chunk values once chunks are wider than the table, so check it
+                if (chunkOf(hashes[slot], c) != chunk) {
+                    continue;
+                }
+                int distance = PerceptualHash.distance(hash, hashes[slot]);
+                if (distance < bestDistance) {
+                    best = slot;
+                    bestDistance = distance;
+                }
+            }
+        }
+        if (best == NONE) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        referenced[best] = true;
+        return results[best];
+    }
+
+    public synchronized void put(long hash, PredictionResult result) {
+        int slot;
+        if (size < hashes.length) {
+            slot = size++;
+        } else {
+            slot = victim();
+            unlink(slot);
+            evictions.incrementAndGet();
+        }
+        hashes[slot] = hash;
+        results[slot] = result;
+        referenced[slot] = false;
+        for (int c = 0; c < chunks; c++) {
+            int bucket = bucketOf(chunkOf(hash, c));
+            int head = heads[c][bucket];
+            next[c][slot] = head;
+            prev[c][slot] = NONE;
+            if (head != NONE) {
+                prev[c][head] = slot;
+            }
+            heads[c][bucket] = slot;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getEvictions() { return evictions.get(); }
+
+    // CLOCK: clear the bit of recently used slots and take the first one without it
+    private int victim() {
+        while (true) {
+            int slot = hand;
+            hand = (hand + 1) % hashes.length;
+            if (!referenced[slot]) {
+                return slot;
+            }
+            referenced[slot] = false;
+        }
+    }
+
+    private void unlink(int slot) {
+        for (int c = 0; c < chunks; c++) {
+            int before = prev[c][slot];
+            int after = next[c][slot];
+            if (before != NONE) {
+                next[c][before] = after;
+            } else {
+                heads[c][bucketOf(chunkOf(hashes[slot], c))] = after;
+            }
+            if (after != NONE) {
+                prev[c][after] = before;
+            }
+        }
+    }
+
+    private long chunkOf(long hash, int chunk) {
+        return (hash >>> chunkShift[chunk]) & chunkMask[chunk];
+    }
+
+    private int bucketOf(long chunk) {
+        // Fibonacci hashing folds chunks wider than the table onto its buckets evenly
+        return (int) ((chunk * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - bucketBits));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.foodDetection.prediction;
+
+// 64-bit difference hash (dHash): the image is box-averaged down to 9x8 gray cells and each bit
+// says whether a cell is brighter than its right neighbour. It survives re-encoding, resizing and
+// mild color shifts, so copies of the same photo land within a few bits of each other.
+// Flat images (blank, dark or blown-out photos) have no hash: their cells differ by noise only,
+// so their bits collapse towards all zeros and unrelated shots would land next to each other.
+final class PerceptualHash {
+
+    private static final int WIDTH = 9;
+    private static final int HEIGHT = 8;
+    // Mean luma step between neighbouring cells (0..255) below which the bits are noise
+    private static final double MIN_CONTRAST = 2.0;
+    // Fewer set (or clear) bits than this and the hash says little more than "flat"
+    private static final int MIN_BITS = 4;
+
+    private PerceptualHash() {
+    }
+
+    // rgb is HWC with one byte per channel, as ImagePreprocessor hands it to the engines;
+    // null when the image is too flat to hash
+    static Long dHash(byte[] rgb, int width, int height) {
+        long[] sums = new long[WIDTH * HEIGHT];
+        int[] counts = new int[WIDTH * HEIGHT];
+
+        for (int y = 0; y < height; y++) {
+            int cellRow = y * HEIGHT / height * WIDTH;
+            int rowStart = y * width * 3;
+            for (int x = 0; x < width; x++) {
+                int i = rowStart + x * 3;
+                // Integer Rec. 601 luma
+                int luma = (299 * (rgb[i] & 0xff) + 587 * (rgb[i + 1] & 0xff) + 114 * (rgb[i + 2] & 0xff)) / 1000;
+                int cell = cellRow + x * WIDTH / width;
+                sums[cell] += luma;
+                counts[cell]++;
+            }
+        }
+
+        long hash = 0;
+        double contrast = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH - 1; x++) {
+                int left = y * WIDTH + x;
+                // Compare means without dividing: sum(a)/n(a) > sum(b)/n(b)
+                boolean brighter = sums[left] * counts[left + 1] > sums[left + 1] * counts[left];
+                hash = (hash << 1) | (brighter ? 1 : 0);
+                contrast += Math.abs((double) sums[left] / counts[left] - (double) sums[left + 1] / counts[left + 1]);
+            }
+        }
+        int bits = Long.bitCount(hash);
+        if (contrast / Long.SIZE < MIN_CONTRAST || bits < MIN_BITS || bits > Long.SIZE - MIN_BITS) {
+            return null;
+        }
+        return hash;
+    }
+
+    static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.foodDetection.prediction;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded LRU of predictions keyed by a hash of the uploaded bytes, so re-uploads of the
+// exact same photo skip inference. Optionally persisted to a local file across restarts.
+@Component
+public class PredictionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionCache.class);
+
+    @Value("${prediction.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${prediction.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${prediction.cache.file:}")
+    private String cacheFile;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private Map<String, PredictionResult> entries;
+
+    @PostConstruct
+    public void init() {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PredictionResult> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        load();
+    }
+
+    // SHA-256 is hardware accelerated on current CPUs and makes accidental collisions a non-issue
+    public String keyFor(ImageInput image) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        if (image.isInMemory()) {
+            digest.update(image.getBuffer(), 0, image.getLength());
+        } else {
+            try (InputStream in = image.openStream()) {
+                byte[] chunk = new byte[8192];
+                int read;
+                while ((read = in.read(chunk)) != -1) {
+                    digest.update(chunk, 0, read);
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public PredictionResult get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        PredictionResult result;
+        synchronized (this) {
+            result = entries.get(key);
+        }
+        if (result != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return result;
+    }
+
+    public void put(String key, PredictionResult result) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            entries.put(key, result);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getEvictions() { return evictions.get(); }
+
+    private void load() {
+        if (!enabled || cacheFile.isBlank() || !Files.exists(Path.of(cacheFile))) {
+            return;
+        }
+        try {
+            Map<String, PredictionResult> saved = objectMapper.readValue(
+                Path.of(cacheFile).toFile(), new TypeReference<LinkedHashMap<String, PredictionResult>>() {}
+            );
+            synchronized (this) {
+                entries.putAll(saved);
+            }
+            log.info("Loaded {} cached predictions from {}", saved.size(), cacheFile);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable prediction cache {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void save() {
+        if (!enabled || cacheFile.isBlank()) {
+            return;
+        }
+        Map<String, PredictionResult> snapshot;
+        synchronized (this) {
+            snapshot = new LinkedHashMap<>(entries);
+        }
+        try {
+            // Write then rename so a crash mid-write never leaves a truncated cache behind
+            Path target = Path.of(cacheFile).toAbsolutePath();
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            objectMapper.writeValue(tmp.toFile(), snapshot);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not save prediction cache to {}: {}", cacheFile, e.getMessage());
+        }
+    }
+}
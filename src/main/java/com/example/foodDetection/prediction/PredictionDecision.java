@@ -0,0 +1,74 @@
+package com.example.foodDetection.prediction;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.List;
+import java.util.Locale;
+
+// What to answer for a prediction, decided by ConfidencePolicy from its scores: one dish, a short
+// list of candidates, or "unknown". Only CONFIDENT and AMBIGUOUS results are worth enriching.
+public class PredictionDecision {
+
+    public enum Outcome { CONFIDENT, AMBIGUOUS, UNKNOWN }
+
+    private final Outcome outcome;
+    private final String foodName;
+    private final double confidence;
+    private final List<Candidate> candidates;
+
+    PredictionDecision(Outcome outcome, String foodName, double confidence, List<Candidate> candidates) {
+        this.outcome = outcome;
+        this.foodName = foodName;
+        this.confidence = confidence;
+        this.candidates = candidates;
+    }
+
+    public Outcome getOutcome() { return outcome; }
+    // The top-1 class, also for UNKNOWN, where it is only a guess and should not be shown as the answer
+    public String getFoodName() { return foodName; }
+    public double getConfidence() { return confidence; }
+    // Best first: just the top-1 when CONFIDENT, the adaptive top-k when AMBIGUOUS, empty when UNKNOWN
+    public List<Candidate> getCandidates() { return candidates; }
+
+    public boolean isUnknown() {
+        return outcome == Outcome.UNKNOWN;
+    }
+
+    public List<String> getCandidateNames() {
+        return candidates.stream().map(Candidate::getName).toList();
+    }
+
+    // "apple pie (62.4%)", as shown in the result page
+    public List<String> getCandidateLabels() {
+        return candidates.stream()
+            .map(candidate -> candidate.getName() + " (" + String.format("%.1f%%", candidate.getConfidence()) + ")")
+            .toList();
+    }
+
+    // The JSON form shared by the batch, job and REST APIs; "predictions" only when AMBIGUOUS
+    public void writeTo(ObjectNode node) {
+        node.put("decision", outcome.name().toLowerCase(Locale.ROOT));
+        node.put("confidence", confidence);
+        if (!isUnknown()) {
+            node.put("food", foodName);
+        }
+        if (outcome == Outcome.AMBIGUOUS) {
+            ArrayNode predictions = node.putArray("predictions");
+            getCandidateLabels().forEach(predictions::add);
+        }
+    }
+
+    public static class Candidate {
+        private final String name;
+        private final double confidence;
+
+        Candidate(String name, double confidence) {
+            this.name = name;
+            this.confidence = confidence;
+        }
+
+        public String getName() { return name; }
+        public double getConfidence() { return confidence; }
+    }
+}
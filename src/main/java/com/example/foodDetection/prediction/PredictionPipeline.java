@@ -0,0 +1,87 @@
+package com.example.foodDetection.prediction;
+
+import com.example.foodDetection.metrics.PipelineMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// The prediction path shared by single and batch uploads: exact-bytes cache, near-duplicate
+// lookup by perceptual hash, then admission and the batching scheduler in front of the engine.
+@Component
+public class PredictionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionPipeline.class);
+
+    @Autowired
+    private PredictionScheduler predictionScheduler;
+
+    @Autowired
+    private Predictor predictor;
+
+    @Autowired
+    private PredictionCache predictionCache;
+
+    @Autowired
+    private NearDuplicateIndex nearDuplicateIndex;
+
+    @Autowired
+    private ImagePreprocessor imagePreprocessor;
+
+    @Autowired
+    private InferenceAdmission inferenceAdmission;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    public PredictionResult predict(ImageInput input) throws Exception {
+        // Re-uploads of the exact same bytes reuse the earlier prediction
+        String cacheKey = predictionCache.keyFor(input);
+        PredictionResult result = predictionCache.get(cacheKey);
+        if (result != null) {
+            return result;
+        }
+
+        // A recompressed or resized copy of an earlier photo reuses its prediction too
+        Long hash = perceptualHash(input);
+        if (hash != null) {
+            result = nearDuplicateIndex.find(hash);
+            if (result != null) {
+                predictionCache.put(cacheKey, result);
+                return result;
+            }
+        }
+
+        // Run the configured prediction engine, batched with concurrent uploads
+        try (InferenceAdmission.Permit permit = inferenceAdmission.acquire()) {
+            result = pipelineMetrics.stage(PipelineMetrics.PREDICT)
+                .recordCallable(() -> predictionScheduler.predict(input));
+        }
+        predictionCache.put(cacheKey, result);
+        if (hash != null) {
+            nearDuplicateIndex.put(hash, result);
+        }
+        return result;
+    }
+
+    // Null when near-duplicate lookup is off, the image is too flat to hash, or ImageIO cannot
+    // decode it (the engine still gets to try it). An engine that reads the JVM's pixels gets them
+    // from this decode; otherwise (the Python default) the hash costs one extra decode, subsampled
+    // down to a thumbnail.
+    private Long perceptualHash(ImageInput input) {
+        if (!nearDuplicateIndex.isEnabled()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            return imagePreprocessor.perceptualHash(input, predictor.usesJvmPixels());
+        } catch (Exception e) {
+            log.debug("No perceptual hash: {}", e.getMessage());
+            return null;
+        } finally {
+            pipelineMetrics.stage(PipelineMetrics.HASH).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
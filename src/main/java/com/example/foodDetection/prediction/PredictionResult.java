@@ -0,0 +1,78 @@
+package com.example.foodDetection.prediction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PredictionResult {
+
+    private static final int TOP_K = 5;
+
+    private String foodName;
+    private double confidence;
+    private List<String> allPredictions = new ArrayList<>();
+    private List<String> topClasses = new ArrayList<>();
+    private List<Double> topConfidences = new ArrayList<>();
+    private float[] scores;
+
+    // Builds the same top-1 / top-5 view predict_spring.py prints from a raw probability vector
+    public static PredictionResult fromScores(float[] scores, List<String> classNames) {
+        PredictionResult result = new PredictionResult();
+        result.setScores(scores);
+        int[] top = topIndices(scores, Math.min(TOP_K, scores.length));
+
+        if (top.length == 0) {
+            result.setFoodName("Unknown");
+            result.setConfidence(0.0);
+            return result;
+        }
+
+        result.setFoodName(displayName(classNames.get(top[0])));
+        result.setConfidence(scores[top[0]] * 100.0);
+        for (int idx : top) {
+            result.getTopClasses().add(displayName(classNames.get(idx)));
+            result.getTopConfidences().add(scores[idx] * 100.0);
+            result.getAllPredictions().add(
+                displayName(classNames.get(idx)) + " (" + String.format("%.1f%%", scores[idx] * 100.0) + ")"
+            );
+        }
+        return result;
+    }
+
+    private static int[] topIndices(float[] scores, int k) {
+        int[] top = new int[k];
+        int filled = 0;
+        for (int i = 0; i < scores.length; i++) {
+            int pos = filled < k ? filled++ : k;
+            while (pos > 0 && scores[top[pos - 1]] < scores[i]) {
+                if (pos < k) {
+                    top[pos] = top[pos - 1];
+                }
+                pos--;
+            }
+            if (pos < k) {
+                top[pos] = i;
+            }
+        }
+        return top;
+    }
+
+    private static String displayName(String className) {
+        return className.replace("_", " ");
+    }
+
+    public String getFoodName() { return foodName; }
+    public void setFoodName(String foodName) { this.foodName = foodName; }
+    public double getConfidence() { return confidence; }
+    public void setConfidence(double confidence) { this.confidence = confidence; }
+    public List<String> getAllPredictions() { return allPredictions; }
+    public void setAllPredictions(List<String> allPredictions) { this.allPredictions = allPredictions; }
+    // Candidate food names, best first, matching the order of allPredictions
+    public List<String> getTopClasses() { return topClasses; }
+    public void setTopClasses(List<String> topClasses) { this.topClasses = topClasses; }
+    // Confidence in percent of each of topClasses
+    public List<Double> getTopConfidences() { return topConfidences; }
+    public void setTopConfidences(List<Double> topConfidences) { this.topConfidences = topConfidences; }
+    // Full probability vector in class order, exact as returned by the model
+    public float[] getScores() { return scores; }
+    public void setScores(float[] scores) { this.scores = scores; }
+}
@@ -0,0 +1,183 @@
+package com.example.foodDetection.prediction;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+// Dynamic micro-batching in front of the Predictor: concurrent uploads are gathered into one
+// batched forward pass of up to max-batch-size images, waiting at most max-wait-ms for company.
+// While every batch slot is busy requests keep queueing, so batches grow with load on their own.
+// A caller waits at most request-timeout-ms (the worker pool's bound) for its result, so a lost
+// batch or a dead dispatcher fails requests instead of hanging them with an admission permit held.
+@Component
+public class PredictionScheduler {
+
+    @Autowired
+    private Predictor predictor;
+
+    @Value("${predictor.batching.enabled:true}")
+    private boolean enabled;
+
+    @Value("${predictor.batching.max-batch-size:8}")
+    private int maxBatchSize;
+
+    @Value("${predictor.batching.max-wait-ms:5}")
+    private long maxWaitMs;
+
+    @Value("${predictor.batching.max-concurrent-batches:2}")
+    private int maxConcurrentBatches;
+
+    @Value("${predictor.pool.request-timeout-ms:30000}")
+    private long requestTimeoutMs;
+
+    private final BlockingQueue<PendingPrediction> queue = new LinkedBlockingQueue<>();
+    private Semaphore batchSlots;
+    private ExecutorService batchExecutor;
+    private Thread dispatcher;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        batchSlots = new Semaphore(maxConcurrentBatches);
+        batchExecutor = Executors.newFixedThreadPool(maxConcurrentBatches, runnable -> {
+            Thread thread = new Thread(runnable, "prediction-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher = new Thread(this::dispatch, "prediction-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    public PredictionResult predict(ImageInput image) throws Exception {
+        if (!enabled) {
+            return predictor.predict(image);
+        }
+
+        PendingPrediction pending = new PendingPrediction(image);
+        queue.add(pending);
+        try {
+            return pending.result.get(requestTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Still queued or in a batch that never finished: either way this caller is done waiting
+            queue.remove(pending);
+            TimeoutException timeout = new TimeoutException("No prediction within " + requestTimeoutMs + " ms");
+            pending.result.completeExceptionally(timeout);
+            throw timeout;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // Wait for a free slot first so requests pile up into a bigger batch meanwhile
+                batchSlots.acquire();
+                List<PendingPrediction> batch = nextBatch();
+                try {
+                    batchExecutor.execute(() -> {
+                        try {
+                            runBatch(batch);
+                        } finally {
+                            batchSlots.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Shutting down: fail the batch rather than letting the exception end this thread
+                    batchSlots.release();
+                    batch.forEach(pending -> pending.result.completeExceptionally(e));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private List<PendingPrediction> nextBatch() throws InterruptedException {
+        List<PendingPrediction> batch = new ArrayList<>(maxBatchSize);
+        batch.add(queue.take());
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        while (batch.size() < maxBatchSize) {
+            // Take whatever is already queued without waiting, then wait out the remaining window
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            PendingPrediction next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void runBatch(List<PendingPrediction> batch) {
+        if (batch.size() == 1) {
+            runSingle(batch.get(0));
+            return;
+        }
+
+        List<ImageInput> images = new ArrayList<>(batch.size());
+        for (PendingPrediction pending : batch) {
+            images.add(pending.image);
+        }
+
+        try {
+            List<PredictionResult> results = predictor.predictBatch(images);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+        } catch (Exception e) {
+            // One bad image must not fail the others: retry them one by one
+            batch.forEach(this::runSingle);
+        }
+    }
+
+    private void runSingle(PendingPrediction pending) {
+        try {
+            pending.result.complete(predictor.predict(pending.image));
+        } catch (Exception e) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            batchExecutor.shutdownNow();
+        }
+        PendingPrediction pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new IllegalStateException("Prediction scheduler stopped"));
+        }
+    }
+
+    private static class PendingPrediction {
+        final ImageInput image;
+        final CompletableFuture<PredictionResult> result = new CompletableFuture<>();
+
+        PendingPrediction(ImageInput image) {
+            this.image = image;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.foodDetection.prediction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Turns an uploaded image into a food classification
+public interface Predictor {
+
+    PredictionResult predict(ImageInput image) throws Exception;
+
+    // True when the engine reads ImagePreprocessor's 224x224 pixels rather than the original bytes,
+    // so decoding them before inference (e.g. for the perceptual hash) costs nothing extra
+    default boolean usesJvmPixels() {
+        return false;
+    }
+
+    // Engines that can run several images in one forward pass override this
+    default List<PredictionResult> predictBatch(List<ImageInput> images) throws Exception {
+        List<PredictionResult> results = new ArrayList<>(images.size());
+        for (ImageInput image : images) {
+            results.add(predict(image));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.foodDetection.prediction;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Decoder for the JSON-lines protocol of "predict_spring.py --serve". Each line is one message
+// carrying a protocol version "v" and a "type"; score vectors are streamed straight into a
+// float[] with no intermediate tree, boxed numbers or regex.
+public final class PredictorProtocol {
+
+    public static final int VERSION = 1;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    public enum Type { READY, PONG, SCORES, ERROR }
+
+    private PredictorProtocol() {
+    }
+
+    // expectedScores sizes the score array up front (the class count) so it is allocated once
+    public static Message decode(String line, int expectedScores) throws IOException {
+        Message message = new Message();
+        int version = -1;
+
+        try (JsonParser parser = JSON.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Predictor response is not a JSON object: " + line);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "v" -> version = parser.getIntValue();
+                    case "type" -> message.type = Type.valueOf(parser.getText().toUpperCase());
+                    case "scores" -> message.scores = readScores(parser, expectedScores);
+                    case "message" -> message.message = parser.getText();
+                    case "classes" -> message.classes = parser.getIntValue();
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown predictor message type: " + line, e);
+        }
+
+        if (version != VERSION) {
+            throw new IOException("Unsupported predictor protocol version " + version + ", expected " + VERSION);
+        }
+        if (message.type == null) {
+            throw new IOException("Predictor response has no type: " + line);
+        }
+        if (message.type == Type.SCORES && message.scores == null) {
+            throw new IOException("Predictor scores response has no scores: " + line);
+        }
+        return message;
+    }
+
+    private static float[] readScores(JsonParser parser, int expectedScores) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Predictor scores must be an array");
+        }
+        float[] scores = new float[Math.max(1, expectedScores)];
+        int count = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (count == scores.length) {
+                scores = Arrays.copyOf(scores, scores.length * 2);
+            }
+            scores[count++] = parser.getFloatValue();
+        }
+        return count == scores.length ? scores : Arrays.copyOf(scores, count);
+    }
+
+    public static final class Message {
+        private Type type;
+        private float[] scores;
+        private String message;
+        private int classes;
+
+        public Type getType() { return type; }
+        public float[] getScores() { return scores; }
+        public String getMessage() { return message; }
+        public int getClasses() { return classes; }
+    }
+}
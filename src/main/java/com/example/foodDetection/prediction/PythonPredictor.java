@@ -0,0 +1,94 @@
+package com.example.foodDetection.prediction;
+
+import com.example.foodDetection.metrics.PipelineMetrics;
+import com.example.foodDetection.prediction.PredictorProtocol.Message;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Subprocess implementation: runs predict_spring.py in the worker pool and decodes its
+// structured responses. Always available, and used as the fallback when the in-JVM engine cannot run.
+@Component
+public class PythonPredictor implements Predictor {
+
+    @Autowired
+    private PythonWorkerPool pythonWorkerPool;
+
+    @Autowired
+    private ClassLabels classLabels;
+
+    @Autowired
+    private ImagePreprocessor imagePreprocessor;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Value("${predictor.python.java-preprocessing:false}")
+    private boolean javaPreprocessing;
+
+    @Override
+    public PredictionResult predict(ImageInput image) throws Exception {
+        // Hand the image to an already warm Python worker instead of spawning a new interpreter
+        ImageInput input = toWorkerInput(List.of(image)).get(0);
+        String response = pipelineMetrics.stage(PipelineMetrics.INFERENCE)
+            .recordCallable(() -> pythonWorkerPool.predict(input));
+        return toResult(response, classLabels.getNames());
+    }
+
+    @Override
+    public boolean usesJvmPixels() {
+        return javaPreprocessing;
+    }
+
+    @Override
+    public List<PredictionResult> predictBatch(List<ImageInput> images) throws Exception {
+        List<ImageInput> inputs = toWorkerInput(images);
+        List<String> responses = pipelineMetrics.stage(PipelineMetrics.INFERENCE)
+            .recordCallable(() -> pythonWorkerPool.predictBatch(inputs));
+        List<String> classNames = classLabels.getNames();
+        List<PredictionResult> results = new ArrayList<>(responses.size());
+        for (String response : responses) {
+            results.add(toResult(response, classNames));
+        }
+        return results;
+    }
+
+    // Decodes and resizes in the JVM, in parallel, so the worker gets 150 KB of pixels instead of a
+    // full-size photo to decode. Images ImageIO cannot read go as-is and OpenCV gets to try them.
+    private List<ImageInput> toWorkerInput(List<ImageInput> images) throws IOException {
+        if (!javaPreprocessing) {
+            return images;
+        }
+        long start = System.nanoTime();
+        List<byte[]> pixels = imagePreprocessor.toRgbBatch(images);
+        pipelineMetrics.stage(PipelineMetrics.PREPROCESS).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        List<ImageInput> inputs = new ArrayList<>(images.size());
+        for (int i = 0; i < images.size(); i++) {
+            byte[] rgb = pixels.get(i);
+            inputs.add(rgb != null ? ImageInput.preprocessed(rgb) : images.get(i));
+        }
+        return inputs;
+    }
+
+    private PredictionResult toResult(String response, List<String> classNames) throws IOException {
+        long start = System.nanoTime();
+        Message message = PredictorProtocol.decode(response, classNames.size());
+        pipelineMetrics.stage(PipelineMetrics.PARSE).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (message.getType() == PredictorProtocol.Type.ERROR) {
+            throw new RuntimeException("Python script failed: " + message.getMessage());
+        }
+        if (message.getType() != PredictorProtocol.Type.SCORES) {
+            throw new IOException("Unexpected predictor response: " + message.getType());
+        }
+        if (message.getScores().length != classNames.size()) {
+            throw new IOException("Predictor returned " + message.getScores().length
+                + " scores for " + classNames.size() + " classes");
+        }
+        return PredictionResult.fromScores(message.getScores(), classNames);
+    }
+}
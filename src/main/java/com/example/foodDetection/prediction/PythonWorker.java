@@ -0,0 +1,148 @@
+package com.example.foodDetection.prediction;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// One long-lived "predict_spring.py --serve" process with the model already loaded
+class PythonWorker {
+
+    // Identity-compared sentinel pushed when the process closes stdout
+    private static final String EOF = new String("<<EOF>>");
+
+    private final int id;
+    private final Process process;
+    private final OutputStream stdin;
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+
+    PythonWorker(int id, List<String> command) throws IOException {
+        this.id = id;
+
+        ProcessBuilder pb = new ProcessBuilder(command);
+        // Keep TensorFlow's stderr noise out of the response stream
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+        this.process = pb.start();
+
+        this.stdin = new BufferedOutputStream(process.getOutputStream(), 64 * 1024);
+
+        Thread reader = new Thread(this::pumpOutput, "python-worker-" + id + "-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    int getId() {
+        return id;
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    // The first message is a versioned "ready" handshake sent once the model is loaded
+    void awaitReady(long timeoutMillis) throws IOException, InterruptedException, TimeoutException {
+        String line = readLine(deadline(timeoutMillis), timeoutMillis);
+        PredictorProtocol.Message ready = PredictorProtocol.decode(line, 0);
+        if (ready.getType() != PredictorProtocol.Type.READY) {
+            throw new IOException("Python worker " + id + " sent " + ready.getType() + " instead of ready");
+        }
+    }
+
+    // Sends one request line and returns the single JSON line answering it
+    String request(String line, long timeoutMillis) throws IOException, InterruptedException, TimeoutException {
+        send(line, List.of());
+        return readLine(deadline(timeoutMillis), timeoutMillis);
+    }
+
+    String predict(ImageInput image, long timeoutMillis) throws IOException, InterruptedException, TimeoutException {
+        send(reference(image), List.of(image));
+        return readLine(deadline(timeoutMillis), timeoutMillis);
+    }
+
+    // Sends several images as one batched forward pass; returns one response line per image
+    List<String> predictBatch(List<ImageInput> images, long timeoutMillis)
+            throws IOException, InterruptedException, TimeoutException {
+        StringBuilder line = new StringBuilder("BATCH");
+        for (ImageInput image : images) {
+            line.append('\t').append(reference(image));
+        }
+        send(line.toString(), images);
+
+        long deadline = deadline(timeoutMillis);
+        List<String> outputs = new ArrayList<>(images.size());
+        for (int i = 0; i < images.size(); i++) {
+            outputs.add(readLine(deadline, timeoutMillis));
+        }
+        return outputs;
+    }
+
+    void destroy() {
+        process.destroyForcibly();
+    }
+
+    // In-memory images travel over the pipe as "@<length>" plus raw bytes, preprocessed pixels
+    // as "%<length>" plus RGB bytes; spilled ones by path
+    private static String reference(ImageInput image) {
+        if (image.isPreprocessed()) {
+            return "%" + image.getLength();
+        }
+        return image.isInMemory() ? "@" + image.getLength() : image.getFile().toString();
+    }
+
+    private void send(String line, List<ImageInput> images) throws IOException {
+        if (!process.isAlive()) {
+            throw new IOException("Python worker " + id + " is not running");
+        }
+        stdin.write(line.getBytes(StandardCharsets.UTF_8));
+        stdin.write('\n');
+        for (ImageInput image : images) {
+            if (image.isInMemory()) {
+                stdin.write(image.getBuffer(), 0, image.getLength());
+            }
+        }
+        stdin.flush();
+    }
+
+    private static long deadline(long timeoutMillis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    private String readLine(long deadline, long timeoutMillis)
+            throws IOException, InterruptedException, TimeoutException {
+        StringBuilder ignored = new StringBuilder();
+
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            String line = remaining > 0 ? lines.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (line == null) {
+                throw new TimeoutException("Python worker " + id + " did not answer within " + timeoutMillis + " ms");
+            }
+            if (line == EOF) {
+                throw new IOException("Python worker " + id + " exited: " + ignored);
+            }
+            // Protocol messages are JSON objects; anything else is stray library output
+            if (line.startsWith("{")) {
+                return line;
+            }
+            ignored.append(line).append("\n");
+        }
+    }
+
+    private void pumpOutput() {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            // Process was killed, treat the same as a normal exit
+        } finally {
+            lines.add(EOF);
+        }
+    }
+}
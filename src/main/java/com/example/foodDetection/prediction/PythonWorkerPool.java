@@ -0,0 +1,228 @@
+package com.example.foodDetection.prediction;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Keeps a fixed number of warm Python predictors so the model is loaded once per worker, not once per image
+@Component
+public class PythonWorkerPool {
+
+    private static final Logger log = LoggerFactory.getLogger(PythonWorkerPool.class);
+
+    @Value("${predictor.python.command:python}")
+    private String pythonCommand;
+
+    @Value("${predictor.python.script:predict_spring.py}")
+    private String pythonScript;
+
+    // saved_model (float32), or a reduced-precision model_<mode>.tflite from quantize_model.py
+    @Value("${predictor.python.model:saved_model}")
+    private String model;
+
+    // TFLite interpreter threads per worker; 0 leaves it to TFLite
+    @Value("${predictor.python.threads:0}")
+    private int threads;
+
+    @Value("${predictor.pool.size:2}")
+    private int poolSize;
+
+    @Value("${predictor.pool.request-timeout-ms:30000}")
+    private long requestTimeoutMs;
+
+    @Value("${predictor.pool.startup-timeout-ms:120000}")
+    private long startupTimeoutMs;
+
+    @Value("${predictor.pool.health-check-interval-ms:30000}")
+    private long healthCheckIntervalMs;
+
+    @Value("${predictor.pool.restart-delay-ms:5000}")
+    private long restartDelayMs;
+
+    private final BlockingQueue<PythonWorker> idleWorkers = new LinkedBlockingQueue<>();
+    private final Set<PythonWorker> allWorkers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextWorkerId = new AtomicInteger();
+    private ScheduledExecutorService scheduler;
+    private volatile boolean started;
+    private volatile boolean shuttingDown;
+
+    // Returns the worker's protocol response line (see PredictorProtocol)
+    public String predict(ImageInput image) throws IOException, InterruptedException, TimeoutException {
+        return execute((worker, timeoutMs) -> worker.predict(image, timeoutMs));
+    }
+
+    // One forward pass for the whole batch on a single worker, one response line per image
+    public List<String> predictBatch(List<ImageInput> images) throws IOException, InterruptedException, TimeoutException {
+        return execute((worker, timeoutMs) -> worker.predictBatch(images, timeoutMs));
+    }
+
+    private <T> T execute(WorkerCall<T> call) throws IOException, InterruptedException, TimeoutException {
+        if (!started) {
+            start();
+        }
+
+        // One deadline for waiting on a worker and for its answer, so a caller never waits longer
+        // than request-timeout-ms in total
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(requestTimeoutMs);
+        PythonWorker worker = idleWorkers.poll(requestTimeoutMs, TimeUnit.MILLISECONDS);
+        if (worker == null) {
+            throw new TimeoutException("No predictor worker became available within " + requestTimeoutMs + " ms");
+        }
+        long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMs <= 0) {
+            idleWorkers.offer(worker);
+            throw new TimeoutException("No predictor worker became available within " + requestTimeoutMs + " ms");
+        }
+
+        T result;
+        try {
+            result = call.call(worker, remainingMs);
+        } catch (IOException | TimeoutException e) {
+            // Crashed or hung worker: replace it and surface the failure to this caller only
+            replace(worker);
+            throw e;
+        } catch (InterruptedException e) {
+            replace(worker);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+        idleWorkers.offer(worker);
+        return result;
+    }
+
+    // Workers are spawned on first use so the application (and its tests) start without Python
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        scheduler = Executors.newScheduledThreadPool(Math.max(2, poolSize), runnable -> {
+            Thread thread = new Thread(runnable, "python-worker-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < poolSize; i++) {
+            scheduler.execute(this::spawnWorker);
+        }
+        scheduler.scheduleWithFixedDelay(this::checkHealth,
+            healthCheckIntervalMs, healthCheckIntervalMs, TimeUnit.MILLISECONDS);
+        started = true;
+    }
+
+    // Starts the pool if needed and waits until every worker has loaded the model
+    public boolean awaitReady(long timeoutMs) throws InterruptedException {
+        start();
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (idleWorkers.size() < poolSize) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(100);
+        }
+        return true;
+    }
+
+    public long getStartupTimeoutMs() {
+        return startupTimeoutMs;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getIdleWorkers() {
+        return idleWorkers.size();
+    }
+
+    // Started workers, busy or idle; lower than the pool size while replacements start up
+    public int getLiveWorkers() {
+        return allWorkers.size();
+    }
+
+    private void spawnWorker() {
+        if (shuttingDown) {
+            return;
+        }
+        PythonWorker worker = null;
+        try {
+            worker = new PythonWorker(nextWorkerId.incrementAndGet(), List.of(pythonCommand, pythonScript,
+                "--serve", "--model", model, "--threads", String.valueOf(threads)));
+            allWorkers.add(worker);
+            worker.awaitReady(startupTimeoutMs);
+            idleWorkers.offer(worker);
+            log.info("Python worker {} ready", worker.getId());
+        } catch (Exception e) {
+            log.error("Failed to start Python worker: {}", e.getMessage());
+            if (worker != null) {
+                allWorkers.remove(worker);
+                worker.destroy();
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            scheduleRestart();
+        }
+    }
+
+    private void replace(PythonWorker worker) {
+        log.warn("Restarting Python worker {}", worker.getId());
+        allWorkers.remove(worker);
+        worker.destroy();
+        scheduleRestart();
+    }
+
+    private void scheduleRestart() {
+        if (!shuttingDown) {
+            scheduler.schedule(this::spawnWorker, restartDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Pings only idle workers so health checks never compete with real requests
+    private void checkHealth() {
+        int toCheck = idleWorkers.size();
+        for (int i = 0; i < toCheck; i++) {
+            PythonWorker worker = idleWorkers.poll();
+            if (worker == null) {
+                return;
+            }
+            try {
+                String reply = worker.request("PING", requestTimeoutMs);
+                if (PredictorProtocol.decode(reply, 0).getType() == PredictorProtocol.Type.PONG) {
+                    idleWorkers.offer(worker);
+                    continue;
+                }
+                log.warn("Python worker {} failed health check: {}", worker.getId(), reply);
+            } catch (InterruptedException e) {
+                idleWorkers.offer(worker);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Python worker {} failed health check: {}", worker.getId(), e.getMessage());
+            }
+            replace(worker);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        shuttingDown = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        allWorkers.forEach(PythonWorker::destroy);
+        allWorkers.clear();
+        idleWorkers.clear();
+    }
+
+    private interface WorkerCall<T> {
+        T call(PythonWorker worker, long timeoutMs) throws IOException, InterruptedException, TimeoutException;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.foodDetection.prediction;
+
+import com.example.foodDetection.metrics.PipelineMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Reads uploads into reusable byte buffers so they reach the decoder/predictor without a
+// filesystem round trip. Uploads above the threshold (or with the mode off) spill to disk.
+// At most buffer-pool.size max-bytes buffers are ever allocated; when they are all in use, an
+// upload gets a buffer of exactly its own size, which is left to the GC afterwards.
+@Component
+public class UploadBuffers {
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Value("${upload.in-memory.enabled:true}")
+    private boolean inMemoryEnabled;
+
+    @Value("${upload.in-memory.max-bytes:4194304}")
+    private int maxInMemoryBytes;
+
+    @Value("${upload.buffer-pool.size:16}")
+    private int poolSize;
+
+    private final AtomicLong spills = new AtomicLong();
+    private final AtomicInteger pooledBuffers = new AtomicInteger();
+    private BlockingQueue<byte[]> freeBuffers;
+
+    @PostConstruct
+    public void init() {
+        freeBuffers = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+    }
+
+    public ImageInput read(MultipartFile upload) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return readOrSpill(upload);
+        } finally {
+            pipelineMetrics.stage(PipelineMetrics.UPLOAD).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private ImageInput readOrSpill(MultipartFile upload) throws IOException {
+        long size = upload.getSize();
+        if (!inMemoryEnabled || size > maxInMemoryBytes) {
+            return spill(upload);
+        }
+
+        byte[] buffer = acquire((int) size);
+        try (InputStream in = upload.getInputStream()) {
+            int length = in.readNBytes(buffer, 0, (int) size);
+            return ImageInput.pooled(buffer, length, this);
+        } catch (IOException | RuntimeException e) {
+            release(buffer);
+            throw e;
+        }
+    }
+
+    public int getFreeBuffers() {
+        return freeBuffers.size();
+    }
+
+    public long getSpills() {
+        return spills.get();
+    }
+
+    private ImageInput spill(MultipartFile upload) throws IOException {
+        spills.incrementAndGet();
+        Path tempFile = Files.createTempFile("food_", ".jpg");
+        try {
+            // Lets the container move its own spilled part instead of copying it
+            upload.transferTo(tempFile);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return ImageInput.spilled(tempFile);
+    }
+
+    // size is the part's declared size, which readOrSpill has already checked against max-bytes
+    byte[] acquire(int size) {
+        byte[] buffer = freeBuffers.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        if (pooledBuffers.getAndUpdate(n -> n < poolSize ? n + 1 : n) < poolSize) {
+            return new byte[maxInMemoryBytes];
+        }
+        return new byte[size];
+    }
+
+    void release(byte[] buffer) {
+        // Only the pool's own buffers go back; exact-size ones from a burst are left to the GC
+        if (buffer.length == maxInMemoryBytes) {
+            freeBuffers.offer(buffer);
+        }
+    }
+}
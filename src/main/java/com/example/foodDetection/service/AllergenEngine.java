@@ -0,0 +1,124 @@
+package com.example.foodDetection.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Allergen detection driven by a rules file (allergens.json on the classpath unless
+// allergens.rules-file points elsewhere), compiled at startup into an AllergenMatcher.
+// Results are bitsets with one bit per allergen in rules-file order.
+@Component
+public class AllergenEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(AllergenEngine.class);
+
+    private static final String BUNDLED_RULES = "/allergens.json";
+
+    @Value("${allergens.rules-file:}")
+    private String rulesFile;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<String> names;
+    private AllergenMatcher matcher;
+
+    @PostConstruct
+    public void init() {
+        try (InputStream in = openRules(rulesFile)) {
+            compile(objectMapper.readTree(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load allergen rules", e);
+        }
+    }
+
+    // The given rules file, or the bundled allergens.json when it is empty
+    static InputStream openRules(String rulesFile) throws IOException {
+        if (rulesFile != null && !rulesFile.isBlank()) {
+            return Files.newInputStream(Path.of(rulesFile));
+        }
+        InputStream in = AllergenEngine.class.getResourceAsStream(BUNDLED_RULES);
+        if (in == null) {
+            throw new IOException("Allergen rules " + BUNDLED_RULES + " not found on the classpath");
+        }
+        return in;
+    }
+
+    public static AllergenEngine fromRules(InputStream rules) throws IOException {
+        AllergenEngine engine = new AllergenEngine();
+        engine.compile(engine.objectMapper.readTree(rules));
+        return engine;
+    }
+
+    public long detect(List<String> ingredients) {
+        return matcher.match(ingredients);
+    }
+
+    public long detect(CharSequence text) {
+        return matcher.match(text);
+    }
+
+    public List<String> namesOf(long allergens) {
+        List<String> result = new ArrayList<>(Long.bitCount(allergens));
+        for (int i = 0; i < names.size(); i++) {
+            if ((allergens & (1L << i)) != 0) {
+                result.add(names.get(i));
+            }
+        }
+        return result;
+    }
+
+    public List<String> getAllergenNames() {
+        return names;
+    }
+
+    private void compile(JsonNode rules) {
+        List<String> allergenNames = new ArrayList<>();
+        Map<String, Long> terms = new LinkedHashMap<>();
+
+        for (JsonNode allergen : rules.path("allergens")) {
+            if (allergenNames.size() == Long.SIZE) {
+                throw new IllegalArgumentException("At most " + Long.SIZE + " allergens are supported");
+            }
+            long bit = 1L << allergenNames.size();
+            allergenNames.add(allergen.get("name").asText());
+            for (JsonNode term : allergen.path("terms")) {
+                addTerm(terms, term.asText(), bit);
+            }
+        }
+        // Phrases that look like an allergen but are not; as the longer match they win over it
+        for (JsonNode exclusion : rules.path("exclusions")) {
+            addTerm(terms, exclusion.asText(), 0);
+        }
+
+        this.names = List.copyOf(allergenNames);
+        this.matcher = new AllergenMatcher(terms);
+        log.info("Compiled {} allergen terms for {} allergens into {} states",
+            terms.size(), names.size(), matcher.getStateCount());
+    }
+
+    // Every term also matches its plain plural, so the rules only list irregular ones
+    private static void addTerm(Map<String, Long> terms, String term, long bit) {
+        String normalized = term.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        terms.merge(normalized, bit, (a, b) -> a | b);
+        if (!normalized.endsWith("s")) {
+            terms.merge(normalized + "s", bit, (a, b) -> a | b);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.foodDetection.service;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+
+// Aho-Corasick automaton over allergen terms, compiled once into a dense transition table.
+// Matching is one pass over the characters of each ingredient with no allocation: terms only
+// count on word boundaries ("nut" not in "nutmeg"), and of overlapping matches the longest
+// wins ("cream of tartar" is not "cream"). Each term carries a bitmask of allergens; the
+// result is the OR of all winning matches.
+final class AllergenMatcher {
+
+    // Characters terms can be made of; anything else ends every match in progress
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789 -'";
+    private static final int SYMBOLS = ALPHABET.length();
+    private static final int[] SYMBOL_OF = new int[256];
+
+    static {
+        Arrays.fill(SYMBOL_OF, -1);
+        for (int i = 0; i < SYMBOLS; i++) {
+            SYMBOL_OF[ALPHABET.charAt(i)] = i;
+        }
+        SYMBOL_OF['\t'] = SYMBOL_OF[' '];
+        SYMBOL_OF[0xA0] = SYMBOL_OF[' '];
+        // Fold Latin-1 accents once here so "crème fraîche" finds "creme fraiche" at match time
+        for (char c = 0xC0; c <= 0xFF; c++) {
+            char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+            base = Character.toLowerCase(base);
+            if (base < 128 && SYMBOL_OF[base] >= 0) {
+                SYMBOL_OF[c] = SYMBOL_OF[base];
+            }
+        }
+    }
+
+    // State 0 means "no transition" while building, so the root is state 1
+    private static final int NONE = 0;
+    private static final int ROOT = 1;
+
+    private final int[] next;        // state * SYMBOLS + symbol -> state (complete DFA)
+    private final int[] depth;       // length of the term prefix a state stands for
+    private final long[] mask;       // allergens of the term ending at a state
+    private final boolean[] terminal;
+    private final int[] outputLink;  // nearest terminal proper suffix state, NONE if there is none
+
+    // terms maps each lowercase term to its allergen mask; 0 marks an exclusion phrase
+    AllergenMatcher(Map<String, Long> terms) {
+        int maxStates = ROOT + 1;
+        for (String term : terms.keySet()) {
+            maxStates += term.length();
+        }
+
+        int[] trie = new int[maxStates * SYMBOLS];
+        int[] depths = new int[maxStates];
+        long[] masks = new long[maxStates];
+        boolean[] terminals = new boolean[maxStates];
+        int states = ROOT + 1;
+
+        for (Map.Entry<String, Long> entry : terms.entrySet()) {
+            String term = entry.getKey();
+            int state = ROOT;
+            for (int i = 0; i < term.length(); i++) {
+                int symbol = symbolOf(term.charAt(i));
+                if (symbol < 0) {
+                    throw new IllegalArgumentException("Unsupported character in allergen term \"" + term + "\"");
+                }
+                int slot = state * SYMBOLS + symbol;
+                if (trie[slot] == NONE) {
+                    trie[slot] = states;
+                    depths[states] = depths[state] + 1;
+                    states++;
+                }
+                state = trie[slot];
+            }
+            terminals[state] = true;
+            masks[state] |= entry.getValue();
+        }
+
+        // Breadth-first: fail links, output links, and the missing transitions filled in
+        int[] fail = new int[states];
+        int[] outputs = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            int slot = ROOT * SYMBOLS + symbol;
+            if (trie[slot] == NONE) {
+                trie[slot] = ROOT;
+            } else {
+                fail[trie[slot]] = ROOT;
+                queue.add(trie[slot]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int failState = fail[state];
+            outputs[state] = terminals[failState] ? failState : outputs[failState];
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                int slot = state * SYMBOLS + symbol;
+                int fallback = trie[failState * SYMBOLS + symbol];
+                if (trie[slot] == NONE) {
+                    trie[slot] = fallback;
+                } else {
+                    fail[trie[slot]] = fallback;
+                    queue.add(trie[slot]);
+                }
+            }
+        }
+
+        this.next = Arrays.copyOf(trie, states * SYMBOLS);
+        this.depth = Arrays.copyOf(depths, states);
+        this.mask = Arrays.copyOf(masks, states);
+        this.terminal = Arrays.copyOf(terminals, states);
+        this.outputLink = outputs;
+    }
+
+    int getStateCount() {
+        return depth.length - 1;
+    }
+
+    long match(Iterable<? extends CharSequence> texts) {
+        long found = 0;
+        for (CharSequence text : texts) {
+            found |= match(text);
+        }
+        return found;
+    }
+
+    long match(CharSequence text) {
+        long found = 0;
+        int state = ROOT;
+
+        // The latest match, held back until we know no longer match starting earlier covers it
+        int pendingStart = -1;
+        long pendingMask = 0;
+
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            int symbol = symbolOf(text.charAt(i));
+            state = symbol < 0 ? ROOT : next[state * SYMBOLS + symbol];
+
+            // Longest term ending here that sits on word boundaries
+            int candidate = terminal[state] ? state : outputLink[state];
+            while (candidate != NONE) {
+                int start = i - depth[candidate] + 1;
+                if (isBoundary(text, start - 1) && isBoundary(text, i + 1)) {
+                    if (start > pendingStart) {
+                        // Starts after the pending match, so it cannot swallow it
+                        found |= pendingMask;
+                    }
+                    pendingStart = start;
+                    pendingMask = mask[candidate];
+                    break;
+                }
+                candidate = outputLink[candidate];
+            }
+        }
+        return found | pendingMask;
+    }
+
+    private static int symbolOf(char c) {
+        if (c < 256) {
+            return SYMBOL_OF[Character.toLowerCase(c)];
+        }
+        return -1;
+    }
+
+    private static boolean isBoundary(CharSequence text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.foodDetection.service;
+
+// Classic three-state breaker. After failureThreshold consecutive failures (or an explicit
+// openFor, e.g. when the quota is used up) calls are refused until the open period ends;
+// then a single trial call is let through and its outcome closes or re-opens the circuit.
+class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean trialInFlight;
+
+    CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+    }
+
+    synchronized boolean allowRequest() {
+        if (state == State.OPEN && System.currentTimeMillis() >= openUntil) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    // The call let through was not made after all (e.g. rate limited): free the trial slot
+    synchronized void cancelTrial() {
+        trialInFlight = false;
+    }
+
+    synchronized boolean isOpen() {
+        return state == State.OPEN && System.currentTimeMillis() < openUntil;
+    }
+
+    // A call that was already in flight when the circuit opened (e.g. quota used up by a
+    // concurrent one) must not close it early: only CLOSED and HALF_OPEN take a success
+    synchronized void recordSuccess() {
+        if (isOpen()) {
+            return;
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            openFor(openMillis);
+        }
+    }
+
+    synchronized void openFor(long millis) {
+        state = State.OPEN;
+        openUntil = Math.max(openUntil, System.currentTimeMillis() + millis);
+        trialInFlight = false;
+    }
+
+    synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() >= openUntil) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+}
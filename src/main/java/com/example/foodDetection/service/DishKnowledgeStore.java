@@ -0,0 +1,131 @@
+package com.example.foodDetection.service;
+
+import com.example.foodDetection.service.FoodInfoService.FoodInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Local FoodInfo per dish, loaded once at startup and indexed by normalized name and alias.
+// The source is a binary snapshot (dish-store.snapshot, memory-mapped) when one exists, else
+// the JSON seed: dish-store.file, or dishes.json on the classpath. Both are built from recorded
+// Spoonacular responses by DishStoreImporter.
+@Component
+public class DishKnowledgeStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DishKnowledgeStore.class);
+
+    static final String BUNDLED_SEED = "/dishes.json";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Value("${dish-store.enabled:true}")
+    private boolean enabled;
+
+    @Value("${dish-store.file:}")
+    private String seedFile;
+
+    @Value("${dish-store.snapshot:}")
+    private String snapshotFile;
+
+    private volatile Map<String, FoodInfo> index = Map.of();
+    private volatile int dishCount;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<DishEntry> entries;
+            String source;
+            if (snapshotFile != null && !snapshotFile.isBlank() && Files.exists(Path.of(snapshotFile))) {
+                entries = DishSnapshot.read(Path.of(snapshotFile));
+                source = snapshotFile;
+            } else {
+                entries = readSeed(seedFile);
+                source = seedFile == null || seedFile.isBlank() ? "classpath:" + BUNDLED_SEED : seedFile;
+            }
+            load(entries);
+            log.info("Loaded {} dishes ({} names) from {}", entries.size(), index.size(), source);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load the dish knowledge store", e);
+        }
+    }
+
+    // Null when the dish is unknown; "French_Fries", "french fries" and "fries" all resolve alike
+    public FoodInfo find(String name) {
+        return name == null ? null : index.get(normalize(name));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        return dishCount;
+    }
+
+    void load(List<DishEntry> entries) {
+        Map<String, FoodInfo> names = new HashMap<>(entries.size() * 4);
+        for (DishEntry entry : entries) {
+            names.put(normalize(entry.key), entry.info);
+        }
+        // Aliases never shadow a dish's own key
+        for (DishEntry entry : entries) {
+            if (entry.aliases != null) {
+                for (String alias : entry.aliases) {
+                    names.putIfAbsent(normalize(alias), entry.info);
+                }
+            }
+        }
+        index = names;
+        dishCount = entries.size();
+    }
+
+    static String normalize(String name) {
+        return WHITESPACE.matcher(name.toLowerCase(Locale.ROOT).replace('_', ' ')).replaceAll(" ").trim();
+    }
+
+    static ObjectMapper seedMapper() {
+        // FoodInfo's derived getters (dietaryTags) are written out but never read back
+        return new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    static List<DishEntry> readSeed(String seedFile) throws IOException {
+        try (InputStream in = seedFile == null || seedFile.isBlank()
+                ? DishKnowledgeStore.class.getResourceAsStream(BUNDLED_SEED)
+                : Files.newInputStream(Path.of(seedFile))) {
+            if (in == null) {
+                throw new IOException("Dish seed " + BUNDLED_SEED + " not found on the classpath");
+            }
+            Seed seed = seedMapper().readValue(in, Seed.class);
+            return seed.dishes != null ? seed.dishes : new ArrayList<>();
+        }
+    }
+
+    public static class Seed {
+        public int version = 1;
+        public List<DishEntry> dishes;
+    }
+
+    public static class DishEntry {
+        public String key;
+        public List<String> aliases;
+        public FoodInfo info;
+    }
+}
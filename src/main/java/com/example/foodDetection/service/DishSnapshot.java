@@ -0,0 +1,135 @@
+package com.example.foodDetection.service;
+
+import com.example.foodDetection.service.DishKnowledgeStore.DishEntry;
+import com.example.foodDetection.service.FoodInfoService.FoodInfo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compact binary form of the dish store: a header, then one length-prefixed record per dish.
+// It is read through a read-only memory map, so startup is one sequential pass over the page
+// cache with no JSON parsing, whatever the number of dishes.
+final class DishSnapshot {
+
+    private static final int MAGIC = 0x44495348; // "DISH"
+    private static final int VERSION = 1;
+
+    private static final int VEGAN = 1;
+    private static final int VEGETARIAN = 1 << 1;
+    private static final int GLUTEN_FREE = 1 << 2;
+    private static final int DAIRY_FREE = 1 << 3;
+
+    private DishSnapshot() {
+    }
+
+    static void write(Path file, List<DishEntry> entries) throws IOException {
+        // Write then rename so a running instance never maps a half-written snapshot
+        Path target = file.toAbsolutePath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (DishEntry entry : entries) {
+                FoodInfo info = entry.info;
+                writeString(out, entry.key);
+                writeStrings(out, entry.aliases);
+                writeString(out, info.getName());
+                writeString(out, info.getDescription());
+                writeStrings(out, info.getIngredients());
+                writeStrings(out, info.getAllergens());
+                out.writeInt(info.getCalories());
+                out.writeByte((info.isVegan() ? VEGAN : 0) | (info.isVegetarian() ? VEGETARIAN : 0)
+                    | (info.isGlutenFree() ? GLUTEN_FREE : 0) | (info.isDairyFree() ? DAIRY_FREE : 0));
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static List<DishEntry> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a dish snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported dish snapshot version " + version + " in " + file);
+            }
+
+            int count = buffer.getInt();
+            List<DishEntry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                DishEntry entry = new DishEntry();
+                entry.key = readString(buffer);
+                entry.aliases = readStrings(buffer);
+
+                FoodInfo info = new FoodInfo();
+                info.setName(readString(buffer));
+                info.setDescription(readString(buffer));
+                info.setIngredients(readStrings(buffer));
+                info.setAllergens(readStrings(buffer));
+                info.setCalories(buffer.getInt());
+                int flags = buffer.get();
+                info.setVegan((flags & VEGAN) != 0);
+                info.setVegetarian((flags & VEGETARIAN) != 0);
+                info.setGlutenFree((flags & GLUTEN_FREE) != 0);
+                info.setDairyFree((flags & DAIRY_FREE) != 0);
+                entry.info = info;
+                entries.add(entry);
+            }
+            return entries;
+        } catch (RuntimeException e) {
+            // Truncated or corrupt file: BufferUnderflowException and friends
+            throw new IOException("Corrupt dish snapshot " + file + ": " + e, e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        int size = values == null ? 0 : values.size();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            writeString(out, values.get(i));
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        ByteBuffer slice = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return StandardCharsets.UTF_8.decode(slice).toString();
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(buffer));
+        }
+        return values;
+    }
+}
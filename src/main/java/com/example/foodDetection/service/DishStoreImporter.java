@@ -0,0 +1,129 @@
+package com.example.foodDetection.service;
+
+import com.example.foodDetection.service.DishKnowledgeStore.DishEntry;
+import com.example.foodDetection.service.DishKnowledgeStore.Seed;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Offline tool that builds the dish store from recorded Spoonacular complexSearch responses
+// (one <dish>.json per dish, as written with spoonacular.record-dir). Recorded dishes replace
+// or extend the seed, keeping its aliases; the result is written as JSON and/or a snapshot.
+//
+//   ./mvnw compile exec:java -Dexec.mainClass=com.example.foodDetection.service.DishStoreImporter \
+//       -Dexec.args="recordings --seed src/main/resources/dishes.json --snapshot dishes.bin"
+//
+// Allergens are detected with --rules, else the allergens.rules-file system property, else the
+// bundled allergens.json, so the store matches what the application itself would detect.
+public class DishStoreImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(DishStoreImporter.class);
+
+    private static final String USAGE = "Usage: DishStoreImporter <recordings-dir> [--seed dishes.json]"
+        + " [--out dishes.json] [--snapshot dishes.bin] [--rules allergens.json]";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            usage(null);
+        }
+
+        Path recordings = Path.of(args[0]);
+        String seed = null;
+        String out = null;
+        String snapshot = null;
+        // Same rules as the application: -Dallergens.rules-file, or the bundled allergens.json
+        String rulesFile = System.getProperty("allergens.rules-file");
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                usage("Missing value for " + args[i]);
+            }
+            switch (args[i]) {
+                case "--seed" -> seed = args[i + 1];
+                case "--out" -> out = args[i + 1];
+                case "--snapshot" -> snapshot = args[i + 1];
+                case "--rules" -> rulesFile = args[i + 1];
+                default -> usage("Unknown option " + args[i]);
+            }
+        }
+        if (out == null && snapshot == null) {
+            out = seed != null ? seed : "dishes.json";
+        }
+
+        AllergenEngine allergenEngine;
+        try (InputStream rules = AllergenEngine.openRules(rulesFile)) {
+            allergenEngine = AllergenEngine.fromRules(rules);
+        }
+
+        List<DishEntry> entries = importRecordings(recordings, DishKnowledgeStore.readSeed(seed), allergenEngine);
+
+        if (out != null) {
+            Seed result = new Seed();
+            result.dishes = entries;
+            ObjectMapper mapper = DishKnowledgeStore.seedMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            mapper.writeValue(Path.of(out).toFile(), result);
+            log.info("Wrote {} dishes to {}", entries.size(), out);
+        }
+        if (snapshot != null) {
+            DishSnapshot.write(Path.of(snapshot), entries);
+            log.info("Wrote {} dishes to snapshot {}", entries.size(), snapshot);
+        }
+    }
+
+    private static void usage(String problem) {
+        if (problem != null) {
+            System.err.println(problem);
+        }
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+
+    static List<DishEntry> importRecordings(Path recordings, List<DishEntry> seed, AllergenEngine allergenEngine)
+            throws IOException {
+        Map<String, DishEntry> byKey = new LinkedHashMap<>();
+        for (DishEntry entry : seed) {
+            byKey.put(DishKnowledgeStore.normalize(entry.key), entry);
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(recordings)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(".json")).sorted().toList();
+        }
+
+        int imported = 0;
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            String key = DishKnowledgeStore.normalize(fileName.substring(0, fileName.length() - ".json".length()));
+
+            JsonNode results = objectMapper.readTree(file.toFile()).path("results");
+            if (results.isEmpty()) {
+                log.info("Skipping {}: no recipes in the recorded response", fileName);
+                continue;
+            }
+
+            DishEntry entry = byKey.computeIfAbsent(key, k -> {
+                DishEntry created = new DishEntry();
+                created.key = k;
+                created.aliases = new ArrayList<>();
+                return created;
+            });
+            entry.info = FoodInfoService.parseRecipe(results.get(0), key, allergenEngine);
+            imported++;
+        }
+
+        log.info("Imported {} of {} recorded responses", imported, files.size());
+        return new ArrayList<>(byKey.values());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.foodDetection.service;
+
+import com.example.foodDetection.service.FoodInfoService.FoodInfo;
+
+import java.util.List;
+
+// The recipe part of a result as clients see it: an immutable copy of a FoodInfo with the
+// dietary tags worked out once. Serialized by DishViewCache for the JSON API and handed to
+// result.html as-is, so both show exactly the same data.
+public final class DishView {
+
+    private final String name;
+    private final String description;
+    private final List<String> ingredients;
+    private final List<String> allergens;
+    private final List<String> dietaryTags;
+    private final int calories;
+    private final boolean vegan;
+    private final boolean vegetarian;
+    private final boolean glutenFree;
+    private final boolean dairyFree;
+
+    private DishView(FoodInfo info) {
+        this.name = info.getName();
+        this.description = info.getDescription();
+        this.ingredients = copy(info.getIngredients());
+        this.allergens = copy(info.getAllergens());
+        this.dietaryTags = List.copyOf(info.getDietaryTags());
+        this.calories = info.getCalories();
+        this.vegan = info.isVegan();
+        this.vegetarian = info.isVegetarian();
+        this.glutenFree = info.isGlutenFree();
+        this.dairyFree = info.isDairyFree();
+    }
+
+    public static DishView of(FoodInfo info) {
+        return new DishView(info);
+    }
+
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public List<String> getIngredients() { return ingredients; }
+    public List<String> getAllergens() { return allergens; }
+    public List<String> getDietaryTags() { return dietaryTags; }
+    public int getCalories() { return calories; }
+    public boolean isVegan() { return vegan; }
+    public boolean isVegetarian() { return vegetarian; }
+    public boolean isGlutenFree() { return glutenFree; }
+    public boolean isDairyFree() { return dairyFree; }
+
+    private static List<String> copy(List<String> values) {
+        return values == null ? List.of() : List.copyOf(values);
+    }
+}
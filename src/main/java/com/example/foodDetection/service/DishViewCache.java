@@ -0,0 +1,66 @@
+package com.example.foodDetection.service;
+
+import com.example.foodDetection.service.FoodInfoService.FoodInfo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// DishView per dish class, with its JSON encoded once, so the REST API writes the same bytes
+// for every request of a dish and the result page renders from the same object. An entry is
+// tied to the FoodInfo it was built from: FoodInfoCache and the dish store hand out the same
+// instance until they refresh it, so a refreshed lookup rebuilds the entry and a short-lived
+// fallback never sticks.
+@Component
+public class DishViewCache {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public Entry get(String foodName, FoodInfo info) {
+        String key = DishKnowledgeStore.normalize(foodName);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.source == info) {
+            hits.incrementAndGet();
+            return entry;
+        }
+        misses.incrementAndGet();
+        DishView view = DishView.of(info);
+        entry = new Entry(info, view, encode(view));
+        entries.put(key, entry);
+        return entry;
+    }
+
+    public int size() { return entries.size(); }
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+
+    private byte[] encode(DishView view) {
+        try {
+            return objectMapper.writeValueAsBytes(view);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode dish " + view.getName(), e);
+        }
+    }
+
+    public static final class Entry {
+        private final FoodInfo source;
+        private final DishView view;
+        private final byte[] json;
+
+        private Entry(FoodInfo source, DishView view, byte[] json) {
+            this.source = source;
+            this.view = view;
+            this.json = json;
+        }
+
+        public DishView getView() { return view; }
+        // UTF-8 JSON of the view; shared, so never modify it
+        public byte[] getJson() { return json; }
+    }
+}
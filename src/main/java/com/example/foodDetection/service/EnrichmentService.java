@@ -0,0 +1,98 @@
+package com.example.foodDetection.service;
+
+import com.example.foodDetection.metrics.PipelineMetrics;
+import com.example.foodDetection.prediction.PredictionDecision;
+import com.example.foodDetection.service.FoodInfoService.FoodInfo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+
+// Non-blocking recipe lookup for a prediction. As soon as scores are known the other candidates
+// of an ambiguous prediction are prefetched in parallel (warming FoodInfoCache for near-misses)
+// while Spoonacular has capacity to spare, so prefetches never take quota from primary lookups,
+// and the top-1 lookup is held to a strict latency budget: past it the caller gets fallback data
+// and the lookup keeps running in the background so the cache is warm for the next request.
+@Service
+public class EnrichmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrichmentService.class);
+
+    @Autowired
+    private FoodInfoService foodInfoService;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Value("${enrichment.budget-ms:1500}")
+    private long budgetMs;
+
+    @Value("${enrichment.prefetch-top-k:3}")
+    private int prefetchTopK;
+
+    @Value("${enrichment.threads:8}")
+    private int threads;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        if (virtualThreads) {
+            // Lookups spend nearly all their time blocked on HTTP, so one virtual thread each is cheap
+            executor = Executors.newVirtualThreadPerTaskExecutor();
+            return;
+        }
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "enrichment");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Not for UNKNOWN decisions: those are answered without spending any enrichment budget
+    public CompletableFuture<FoodInfo> enrich(PredictionDecision decision) {
+        String foodName = decision.getFoodName();
+        CompletableFuture<FoodInfo> primary = lookup(foodName);
+
+        // Speculative prefetch of the runner-up candidates; results only land in the cache
+        decision.getCandidateNames().stream()
+            .skip(1)
+            .limit(Math.max(0, prefetchTopK - 1))
+            .filter(foodInfoService::isWorthPrefetching)
+            .forEach(this::lookup);
+
+        return primary
+            .copy()
+            .orTimeout(budgetMs, TimeUnit.MILLISECONDS)
+            .exceptionally(e -> {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof TimeoutException) {
+                    log.warn("Recipe lookup for {} exceeded {} ms, using fallback", foodName, budgetMs);
+                    pipelineMetrics.fallback("budget_exceeded");
+                } else {
+                    // Upstream failures are answered (and counted) by FoodInfoService itself, so
+                    // whatever lands here is a lookup that broke outright
+                    log.warn("Recipe lookup for {} failed, using fallback: {}", foodName, cause.toString());
+                    pipelineMetrics.fallback("lookup_failed");
+                }
+                return foodInfoService.getFallbackData(foodName);
+            });
+    }
+
+    private CompletableFuture<FoodInfo> lookup(String foodName) {
+        return CompletableFuture.supplyAsync(() -> foodInfoService.getFoodInfo(foodName), executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.foodDetection.service;
+
+import com.example.foodDetection.service.FoodInfoService.FoodInfo;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// In-memory (plus optional on-disk) cache of FoodInfo per normalized dish name.
+// Fresh entries are served directly; stale ones are served while a single background
+// refresh runs; concurrent misses for the same dish share one upstream lookup.
+// The key space is the model's class list, so entries are never evicted, only refreshed.
+@Component
+public class FoodInfoCache {
+
+    private static final Logger log = LoggerFactory.getLogger(FoodInfoCache.class);
+
+    @Value("${food-info.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${food-info.cache.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${food-info.cache.stale-minutes:10080}")
+    private long staleMinutes;
+
+    @Value("${food-info.cache.fallback-ttl-minutes:15}")
+    private long fallbackTtlMinutes;
+
+    @Value("${food-info.cache.file:}")
+    private String cacheFile;
+
+    @Value("${food-info.cache.flush-interval-ms:60000}")
+    private long flushIntervalMs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Map<String, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<FoodInfo>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private ScheduledExecutorService refresher;
+
+    @PostConstruct
+    public void init() {
+        refresher = Executors.newScheduledThreadPool(1, runnable -> {
+            Thread thread = new Thread(runnable, "food-info-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled && !cacheFile.isBlank()) {
+            load();
+            refresher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public FoodInfo get(String key, Supplier<Lookup> loader) {
+        if (!enabled) {
+            return loader.get().info;
+        }
+
+        long now = System.currentTimeMillis();
+        CacheEntry entry = entries.get(key);
+        if (entry != null && now < entry.freshUntil) {
+            hits.incrementAndGet();
+            return entry.info;
+        }
+        if (entry != null && now < entry.staleUntil) {
+            // Stale-while-revalidate: answer now, refresh once in the background
+            staleHits.incrementAndGet();
+            if (!inFlight.containsKey(key)) {
+                refresher.execute(() -> load(key, loader));
+            }
+            return entry.info;
+        }
+
+        misses.incrementAndGet();
+        return load(key, loader);
+    }
+
+    public boolean isFresh(String key) {
+        CacheEntry entry = enabled ? entries.get(key) : null;
+        return entry != null && System.currentTimeMillis() < entry.freshUntil;
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getStaleHits() { return staleHits.get(); }
+    public long getMisses() { return misses.get(); }
+
+    // Only one caller per key runs the loader; everyone else waits on its result
+    private FoodInfo load(String key, Supplier<Lookup> loader) {
+        CompletableFuture<FoodInfo> mine = new CompletableFuture<>();
+        CompletableFuture<FoodInfo> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return existing.join();
+        }
+
+        try {
+            Lookup lookup = loader.get();
+            long now = System.currentTimeMillis();
+            CacheEntry previous = entries.get(key);
+            CacheEntry entry;
+            if (!lookup.fromUpstream && previous != null && previous.fromUpstream) {
+                // A failed refresh keeps the upstream data (the same instance, so views built from
+                // it stay valid), retried no sooner than a fallback would be
+                long freshUntil = now + TimeUnit.MINUTES.toMillis(fallbackTtlMinutes);
+                entry = new CacheEntry(previous.info, freshUntil, Math.max(previous.staleUntil, freshUntil), true);
+            } else if (lookup.fromUpstream) {
+                long freshUntil = now + TimeUnit.MINUTES.toMillis(ttlMinutes);
+                entry = new CacheEntry(lookup.info, freshUntil, freshUntil + TimeUnit.MINUTES.toMillis(staleMinutes), true);
+            } else {
+                // Fallback data is cached briefly so a failing upstream is retried, but not hammered
+                long freshUntil = now + TimeUnit.MINUTES.toMillis(fallbackTtlMinutes);
+                entry = new CacheEntry(lookup.info, freshUntil, freshUntil, false);
+            }
+            // Entries are replaced, never changed, since get() reads them without a lock
+            entries.put(key, entry);
+            dirty.set(true);
+            mine.complete(entry.info);
+            return entry.info;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private void load() {
+        Path file = Path.of(cacheFile);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            Map<String, CacheEntry> saved = objectMapper.readValue(
+                file.toFile(), new TypeReference<HashMap<String, CacheEntry>>() {}
+            );
+            long now = System.currentTimeMillis();
+            saved.values().removeIf(entry -> entry.staleUntil <= now);
+            entries.putAll(saved);
+            log.info("Loaded {} cached food info entries from {}", saved.size(), cacheFile);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable food info cache {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    private void flush() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            // Write then rename so a crash mid-write never leaves a truncated cache behind
+            Path target = Path.of(cacheFile).toAbsolutePath();
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            objectMapper.writeValue(tmp.toFile(), new HashMap<>(entries));
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty.set(true);
+            log.warn("Could not save food info cache to {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+        if (enabled && !cacheFile.isBlank()) {
+            flush();
+        }
+    }
+
+    // Result of one upstream lookup; fallback data is cached with a much shorter TTL
+    public static class Lookup {
+        final FoodInfo info;
+        final boolean fromUpstream;
+
+        public Lookup(FoodInfo info, boolean fromUpstream) {
+            this.info = info;
+            this.fromUpstream = fromUpstream;
+        }
+    }
+
+    public static final class CacheEntry {
+        public final FoodInfo info;
+        public final long freshUntil;
+        public final long staleUntil;
+        public final boolean fromUpstream;
+
+        @JsonCreator
+        public CacheEntry(@JsonProperty("info") FoodInfo info,
+                          @JsonProperty("freshUntil") long freshUntil,
+                          @JsonProperty("staleUntil") long staleUntil,
+                          @JsonProperty("fromUpstream") boolean fromUpstream) {
+            this.info = info;
+            this.freshUntil = freshUntil;
+            this.staleUntil = staleUntil;
+            this.fromUpstream = fromUpstream;
+        }
+    }
+}
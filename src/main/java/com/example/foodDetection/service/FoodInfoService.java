@@ -1,71 +1,129 @@
 package com.example.foodDetection.service;
 
+import com.example.foodDetection.metrics.PipelineMetrics;
+import com.example.foodDetection.service.FoodInfoCache.Lookup;
+import com.example.foodDetection.service.SpoonacularClient.UpstreamUnavailableException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
 @Service
 public class FoodInfoService {
 
-    @Value("${spoonacular.api.key}")
-    private String apiKey;
+    private static final Logger log = LoggerFactory.getLogger(FoodInfoService.class);
 
-    @Value("${spoonacular.api.base-url:https://api.spoonacular.com}")
-    private String baseUrl;
+    @Autowired
+    private SpoonacularClient spoonacularClient;
+
+    @Autowired
+    private FoodInfoCache foodInfoCache;
+
+    @Autowired
+    private AllergenEngine allergenEngine;
+
+    @Autowired
+    private DishKnowledgeStore dishStore;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Value("${dish-store.prefer-local:true}")
+    private boolean preferLocal;
+
+    @Value("${spoonacular.record-dir:}")
+    private String recordDir;
 
-    private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     public FoodInfo getFoodInfo(String foodName) {
+        String cleanName = cleanName(foodName);
+        if (preferLocal) {
+            // Dishes in the local store are answered without any network call
+            FoodInfo local = dishStore.find(cleanName);
+            if (local != null) {
+                return local;
+            }
+        }
+        return foodInfoCache.get(cleanName, () -> lookupFoodInfo(foodName, cleanName));
+    }
+
+    // True when getFoodInfo would answer without calling Spoonacular
+    public boolean isAvailableLocally(String foodName) {
+        String cleanName = cleanName(foodName);
+        return (preferLocal && dishStore.find(cleanName) != null) || foodInfoCache.isFresh(cleanName);
+    }
+
+    // Speculative lookups only pay off for dishes not answered locally, and must only spend upstream
+    // capacity that no real lookup needs right now
+    public boolean isWorthPrefetching(String foodName) {
+        return !isAvailableLocally(foodName) && spoonacularClient.hasSpareCapacity();
+    }
+
+    private static String cleanName(String foodName) {
+        return foodName.toLowerCase().replace("_", " ").trim();
+    }
+
+    private Lookup lookupFoodInfo(String foodName, String cleanName) {
         try {
-            String cleanName = foodName.toLowerCase().replace("_", " ").trim();
-            
-            System.out.println("Searching Spoonacular recipes for: " + cleanName);
+            log.debug("Searching Spoonacular recipes for: {}", cleanName);
             
             // Use Recipe Search API instead (better for dishes)
-            String encodedName = URLEncoder.encode(cleanName, StandardCharsets.UTF_8);
-            String searchUrl = String.format(
-                "%s/recipes/complexSearch?query=%s&number=1&addRecipeInformation=true&fillIngredients=true&apiKey=%s",
-                baseUrl, encodedName, apiKey
-            );
-            
-            String searchResponse = restTemplate.getForObject(searchUrl, String.class);
+            String searchResponse = spoonacularClient.searchRecipes(cleanName);
+            record(cleanName, searchResponse);
             JsonNode searchResult = objectMapper.readTree(searchResponse);
             
             // Check if we found results
             if (!searchResult.has("results") || searchResult.get("results").size() == 0) {
-                System.out.println("No recipes found, using fallback");
-                return getFallbackData(foodName);
+                log.info("No recipes found for {}, using fallback", cleanName);
+                pipelineMetrics.fallback("no_results");
+                // A definitive answer from Spoonacular, so it is worth caching for the full TTL
+                return new Lookup(getFallbackData(foodName), true);
             }
             
             JsonNode recipe = searchResult.get("results").get(0);
             
-            System.out.println(" Found recipe: " + recipe.get("title").asText());
+            log.debug("Found recipe: {}", recipe.path("title").asText());
             
             // Parse the recipe data
-            return parseRecipeData(recipe, cleanName);
+            return new Lookup(parseRecipeData(recipe, cleanName), true);
             
+        } catch (UpstreamUnavailableException e) {
+            // Rate limited or circuit open: answer locally without touching the network
+            log.debug("{}, using fallback for: {}", e.getMessage(), cleanName);
+            pipelineMetrics.fallback("upstream_unavailable");
+            return new Lookup(getFallbackData(foodName), false);
         } catch (HttpClientErrorException e) {
-            System.err.println("Spoonacular API Error: " + e.getStatusCode());
-            if (e.getStatusCode().value() == 402) {
-                System.err.println("Daily quota exceeded (150 requests/day)");
-            }
-            return getFallbackData(foodName);
+            log.warn("Spoonacular API error {} for {}", e.getStatusCode(), cleanName);
+            pipelineMetrics.fallback("client_error");
+            return new Lookup(getFallbackData(foodName), false);
+        } catch (ResourceAccessException e) {
+            log.warn("Spoonacular unreachable or too slow: {}", e.getMessage());
+            pipelineMetrics.fallback("unreachable");
+            return new Lookup(getFallbackData(foodName), false);
         } catch (Exception e) {
-            System.err.println("Error: " + e.getMessage());
-            e.printStackTrace();
-            return getFallbackData(foodName);
+            log.error("Recipe lookup for {} failed", cleanName, e);
+            pipelineMetrics.fallback("error");
+            return new Lookup(getFallbackData(foodName), false);
         }
     }
 
-    private FoodInfo parseRecipeData(JsonNode recipe, String originalName) {
+    FoodInfo parseRecipeData(JsonNode recipe, String originalName) {
+        return parseRecipe(recipe, originalName, allergenEngine);
+    }
+
+    // Static so DishStoreImporter can turn recorded responses into FoodInfo outside Spring
+    static FoodInfo parseRecipe(JsonNode recipe, String originalName, AllergenEngine allergenEngine) {
         FoodInfo info = new FoodInfo();
         
         // Basic info
@@ -126,219 +184,47 @@ public class FoodInfoService {
         }
         
         // Detect allergens from ingredients
-        info.setAllergens(detectAllergensFromIngredients(ingredients));
+        info.setAllergens(allergenEngine.namesOf(allergenEngine.detect(ingredients)));
         
-        System.out.println("Parsed: " + info.getName() + " with " + ingredients.size() + " ingredients");
+        log.debug("Parsed: {} with {} ingredients", info.getName(), ingredients.size());
         
         return info;
     }
 
-    private List<String> detectAllergensFromIngredients(List<String> ingredients) {
-        Set<String> allergens = new HashSet<>();
-        String allIngredients = String.join(" ", ingredients).toLowerCase();
-        
-        if (allIngredients.contains("milk") || allIngredients.contains("cheese") || 
-            allIngredients.contains("cream") || allIngredients.contains("butter") ||
-            allIngredients.contains("yogurt")) {
-            allergens.add("Dairy");
-        }
-        
-        if (allIngredients.contains("egg")) {
-            allergens.add("Eggs");
-        }
-        
-        if (allIngredients.contains("wheat") || allIngredients.contains("flour") ||
-            allIngredients.contains("bread")) {
-            allergens.add("Gluten");
-        }
-        
-        if (allIngredients.contains("fish") || allIngredients.contains("salmon") ||
-            allIngredients.contains("tuna") || allIngredients.contains("seafood")) {
-            allergens.add("Fish/Seafood");
-        }
-        
-        if (allIngredients.contains("soy") || allIngredients.contains("tofu")) {
-            allergens.add("Soy");
-        }
-        
-        if (allIngredients.contains("peanut") || allIngredients.contains("almond") ||
-            allIngredients.contains("walnut") || allIngredients.contains("cashew") ||
-            allIngredients.contains("nut")) {
-            allergens.add("Tree Nuts");
-        }
-        
-        if (allIngredients.contains("shrimp") || allIngredients.contains("crab") ||
-            allIngredients.contains("lobster") || allIngredients.contains("shellfish")) {
-            allergens.add("Shellfish");
-        }
-        
-        return new ArrayList<>(allergens);
+    List<String> detectAllergensFromIngredients(List<String> ingredients) {
+        return allergenEngine.namesOf(allergenEngine.detect(ingredients));
     }
 
-    private FoodInfo getFallbackData(String foodName) {
-        System.out.println("Using fallback data for: " + foodName);
-        
-        FoodInfo info = new FoodInfo();
-        String nameLower = foodName.toLowerCase().replace(" ", "_");
-        
-        switch (nameLower) {
-            case "pizza":
-                info.setName("Pizza");
-                info.setIngredients(Arrays.asList(
-                    "1 lb pizza dough",
-                    "1/2 cup tomato sauce",
-                    "2 cups mozzarella cheese",
-                    "2 tbsp olive oil",
-                    "Fresh basil leaves",
-                    "Salt and pepper to taste"
-                ));
-                info.setVegetarian(true);
-                info.setCalories(266);
-                info.setAllergens(Arrays.asList("Gluten", "Dairy"));
-                info.setDescription("Classic Italian flatbread topped with tomato sauce, cheese, and various toppings, baked until golden and bubbly");
-                break;
-                
-            case "hamburger":
-                info.setName("Hamburger");
-                info.setIngredients(Arrays.asList(
-                    "1 lb ground beef",
-                    "4 hamburger buns",
-                    "4 slices cheese",
-                    "Lettuce leaves",
-                    "Tomato slices",
-                    "Onion slices",
-                    "Pickles",
-                    "Ketchup and mustard"
-                ));
-                info.setVegetarian(false);
-                info.setCalories(540);
-                info.setAllergens(Arrays.asList("Gluten", "Dairy"));
-                info.setDescription("Classic American sandwich with seasoned ground beef patty, fresh vegetables, and condiments between soft buns");
-                break;
-                
-            case "sushi":
-                info.setName("Sushi");
-                info.setIngredients(Arrays.asList(
-                    "2 cups sushi rice",
-                    "1/4 cup rice vinegar",
-                    "8 oz fresh fish (tuna, salmon)",
-                    "4 nori sheets",
-                    "Soy sauce",
-                    "Wasabi",
-                    "Pickled ginger",
-                    "Cucumber and avocado"
-                ));
-                info.setVegetarian(false);
-                info.setGlutenFree(true);
-                info.setDairyFree(true);
-                info.setCalories(143);
-                info.setAllergens(Arrays.asList("Fish", "Soy"));
-                info.setDescription("Traditional Japanese dish featuring vinegared rice combined with fresh raw fish, vegetables, and seaweed");
-                break;
-                
-            case "donuts":
-            case "donut":
-                info.setName("Donuts");
-                info.setIngredients(Arrays.asList(
-                    "2 cups all-purpose flour",
-                    "1/2 cup sugar",
-                    "2 eggs",
-                    "1 cup milk",
-                    "1/4 cup butter",
-                    "2 tsp yeast",
-                    "1 tsp vanilla extract",
-                    "Oil for frying",
-                    "Glaze or icing"
-                ));
-                info.setVegetarian(true);
-                info.setCalories(250);
-                info.setAllergens(Arrays.asList("Gluten", "Dairy", "Eggs"));
-                info.setDescription("Sweet fried dough confection, often ring-shaped, glazed or filled with cream or jam");
-                break;
-                
-            case "french_fries":
-            case "french fries":
-                info.setName("French Fries");
-                info.setIngredients(Arrays.asList(
-                    "4 large potatoes",
-                    "Vegetable oil for frying",
-                    "Salt to taste"
-                ));
-                info.setVegan(true);
-                info.setVegetarian(true);
-                info.setGlutenFree(true);
-                info.setDairyFree(true);
-                info.setCalories(312);
-                info.setAllergens(new ArrayList<>());
-                info.setDescription("Crispy deep-fried potato strips, golden on the outside and fluffy inside, seasoned with salt");
-                break;
-                
-            case "ice_cream":
-            case "ice cream":
-                info.setName("Ice Cream");
-                info.setIngredients(Arrays.asList(
-                    "2 cups heavy cream",
-                    "1 cup whole milk",
-                    "3/4 cup sugar",
-                    "4 egg yolks",
-                    "2 tsp vanilla extract",
-                    "Pinch of salt"
-                ));
-                info.setVegetarian(true);
-                info.setGlutenFree(true);
-                info.setCalories(207);
-                info.setAllergens(Arrays.asList("Dairy", "Eggs"));
-                info.setDescription("Frozen dessert made from sweetened and flavored dairy products, churned to create a smooth, creamy texture");
-                break;
-                
-            case "steak":
-                info.setName("Steak");
-                info.setIngredients(Arrays.asList(
-                    "1 lb beef steak (ribeye or sirloin)",
-                    "2 tbsp butter",
-                    "3 cloves garlic",
-                    "Fresh rosemary and thyme",
-                    "Salt and black pepper",
-                    "Olive oil"
-                ));
-                info.setVegetarian(false);
-                info.setGlutenFree(true);
-                info.setCalories(679);
-                info.setAllergens(Arrays.asList("Dairy"));
-                info.setDescription("Premium cut of beef, grilled or pan-seared to perfection, seasoned with herbs and spices");
-                break;
-                
-            case "ramen":
-                info.setName("Ramen");
-                info.setIngredients(Arrays.asList(
-                    "4 oz wheat noodles",
-                    "4 cups chicken or pork broth",
-                    "2 tbsp soy sauce",
-                    "1 tbsp miso paste",
-                    "2 soft-boiled eggs",
-                    "4 oz pork belly or chicken",
-                    "Green onions",
-                    "Nori sheets",
-                    "Bamboo shoots"
-                ));
-                info.setVegetarian(false);
-                info.setDairyFree(true);
-                info.setCalories(436);
-                info.setAllergens(Arrays.asList("Gluten", "Eggs", "Soy"));
-                info.setDescription("Japanese noodle soup with rich broth, topped with meat, eggs, and vegetables");
-                break;
-                
-            default:
-                info.setName(foodName.replace("_", " "));
-                info.setIngredients(Arrays.asList("Ingredient information not available"));
-                info.setCalories(0);
-                info.setAllergens(new ArrayList<>());
-                info.setDescription("Nutritional information unavailable for this food item");
+    public FoodInfo getFallbackData(String foodName) {
+        log.debug("Using fallback data for: {}", foodName);
+
+        FoodInfo local = dishStore.find(foodName);
+        if (local != null) {
+            return local;
         }
-        
+
+        FoodInfo info = new FoodInfo();
+        info.setName(foodName.replace("_", " "));
+        info.setIngredients(Arrays.asList("Ingredient information not available"));
+        info.setCalories(0);
+        info.setAllergens(new ArrayList<>());
+        info.setDescription("Nutritional information unavailable for this food item");
         return info;
     }
 
+    // Keeps raw responses for DishStoreImporter, one file per dish, when spoonacular.record-dir is set
+    private void record(String cleanName, String response) {
+        if (recordDir == null || recordDir.isBlank() || response == null) {
+            return;
+        }
+        try {
+            Path dir = Files.createDirectories(Path.of(recordDir));
+            Files.writeString(dir.resolve(cleanName.replaceAll("[^a-z0-9]+", "_") + ".json"), response);
+        } catch (IOException e) {
+            log.warn("Could not record Spoonacular response for {}: {}", cleanName, e.getMessage());
+        }
+    }
+
     public static class FoodInfo {
         private String name;
         private String description;
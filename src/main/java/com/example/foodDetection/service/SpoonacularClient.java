@@ -0,0 +1,212 @@
+package com.example.foodDetection.service;
+
+import com.example.foodDetection.metrics.PipelineMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Outbound client for the Spoonacular API. Requests share pooled keep-alive connections of one
+// JDK HttpClient with connect/read timeouts, pass a token bucket sized to the plan's rate limit,
+// and go through a circuit breaker that also opens once the daily quota is exhausted (402, 429
+// or X-API-Quota-Left reaching 0). Refused calls fail fast with UpstreamUnavailableException so
+// the caller can answer from local data.
+@Component
+public class SpoonacularClient {
+
+    private static final Logger log = LoggerFactory.getLogger(SpoonacularClient.class);
+
+    public static final List<String> CIRCUIT_STATES =
+        Arrays.stream(CircuitBreaker.State.values()).map(Enum::name).toList();
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Value("${spoonacular.api.key}")
+    private String apiKey;
+
+    @Value("${spoonacular.api.base-url:https://api.spoonacular.com}")
+    private String baseUrl;
+
+    @Value("${spoonacular.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${spoonacular.http.read-timeout-ms:3000}")
+    private long readTimeoutMs;
+
+    @Value("${spoonacular.rate-limit.per-second:1}")
+    private double permitsPerSecond;
+
+    @Value("${spoonacular.rate-limit.burst:2}")
+    private int burst;
+
+    @Value("${spoonacular.circuit.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${spoonacular.circuit.open-ms:30000}")
+    private long openMs;
+
+    private RestTemplate restTemplate;
+    private TokenBucket rateLimiter;
+    private CircuitBreaker circuitBreaker;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong shortCircuited = new AtomicLong();
+    private volatile double quotaLeft = Double.NaN;
+    private volatile double quotaUsed = Double.NaN;
+
+    @PostConstruct
+    public void init() {
+        // One HttpClient for the whole application: it keeps connections alive and reuses them
+        HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        restTemplate = new RestTemplate(requestFactory);
+        rateLimiter = new TokenBucket(permitsPerSecond, burst);
+        circuitBreaker = new CircuitBreaker(failureThreshold, openMs);
+    }
+
+    // Raw complexSearch response for the best matching recipe
+    public String searchRecipes(String query) {
+        if (circuitBreaker.isOpen()) {
+            shortCircuited.incrementAndGet();
+            throw new UpstreamUnavailableException("Spoonacular circuit is open");
+        }
+        // The breaker goes first so refused calls never spend rate-limit tokens
+        if (!circuitBreaker.allowRequest()) {
+            shortCircuited.incrementAndGet();
+            throw new UpstreamUnavailableException("Spoonacular circuit is half-open, trial call in flight");
+        }
+        if (!rateLimiter.tryAcquire()) {
+            circuitBreaker.cancelTrial();
+            rateLimited.incrementAndGet();
+            throw new UpstreamUnavailableException("Spoonacular rate limit reached");
+        }
+
+        String url = String.format(
+            "%s/recipes/complexSearch?query=%s&number=1&addRecipeInformation=true&fillIngredients=true&apiKey=%s",
+            baseUrl, URLEncoder.encode(query, StandardCharsets.UTF_8), apiKey
+        );
+
+        calls.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, null, String.class);
+            circuitBreaker.recordSuccess();
+            readQuota(response.getHeaders());
+            return response.getBody();
+        } catch (HttpStatusCodeException e) {
+            int status = e.getStatusCode().value();
+            if (status == 402 || status == 429) {
+                // Out of quota: every further call would fail the same way until it resets
+                log.warn("Spoonacular quota exhausted ({}), using local data until it resets", status);
+                circuitBreaker.openFor(status == 402 ? millisUntilQuotaReset() : retryAfterMillis(e.getResponseHeaders()));
+            } else {
+                circuitBreaker.recordFailure();
+            }
+            readQuota(e.getResponseHeaders());
+            throw e;
+        } catch (ResourceAccessException e) {
+            // Connect/read timeout or connection failure
+            circuitBreaker.recordFailure();
+            throw e;
+        } catch (RuntimeException e) {
+            // Any other failure must settle the call too, or a half-open trial would never end
+            circuitBreaker.recordFailure();
+            throw e;
+        } finally {
+            pipelineMetrics.stage(PipelineMetrics.SPOONACULAR).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Time until searchRecipes would be let through, Long.MAX_VALUE while the circuit is open
+    public long millisUntilPermit() {
+        if (circuitBreaker.isOpen()) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(rateLimiter.nanosUntilAvailable() + 999_999);
+    }
+
+    // True when a speculative call would not compete with real lookups: the circuit is closed and
+    // the rate limiter would still hold a token for the next one
+    public boolean hasSpareCapacity() {
+        return circuitBreaker.getState() == CircuitBreaker.State.CLOSED && rateLimiter.hasSpare(1);
+    }
+
+    public double getQuotaLeft() { return quotaLeft; }
+    public double getQuotaUsed() { return quotaUsed; }
+    public long getCalls() { return calls.get(); }
+    public long getRateLimited() { return rateLimited.get(); }
+    public long getShortCircuited() { return shortCircuited.get(); }
+    public String getCircuitState() { return circuitBreaker.getState().name(); }
+
+    private void readQuota(HttpHeaders headers) {
+        if (headers == null) {
+            return;
+        }
+        Double left = parse(headers.getFirst("X-API-Quota-Left"));
+        Double used = parse(headers.getFirst("X-API-Quota-Used"));
+        if (used != null) {
+            quotaUsed = used;
+        }
+        if (left != null) {
+            quotaLeft = left;
+            if (left <= 0) {
+                circuitBreaker.openFor(millisUntilQuotaReset());
+            }
+        }
+    }
+
+    private long retryAfterMillis(HttpHeaders headers) {
+        Double seconds = headers != null ? parse(headers.getFirst(HttpHeaders.RETRY_AFTER)) : null;
+        return seconds != null ? (long) (seconds * 1000) : openMs;
+    }
+
+    // Spoonacular points reset at midnight UTC
+    private static long millisUntilQuotaReset() {
+        long midnight = LocalDate.now(ZoneOffset.UTC).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        return midnight - System.currentTimeMillis();
+    }
+
+    private static Double parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static class UpstreamUnavailableException extends RuntimeException {
+        public UpstreamUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
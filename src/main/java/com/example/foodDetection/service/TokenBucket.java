@@ -0,0 +1,45 @@
+package com.example.foodDetection.service;
+
+// Token bucket rate limiter: refills at a steady rate up to a burst capacity. tryAcquire never
+// blocks, so callers over the limit fall back immediately instead of queueing on a request thread.
+class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double permitsPerSecond, int burst) {
+        this.capacity = Math.max(1, burst);
+        this.tokensPerNano = permitsPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    // True when tryAcquire would succeed and still leave reserved whole tokens behind
+    synchronized boolean hasSpare(int reserved) {
+        refill();
+        return tokens >= reserved + 1;
+    }
+
+    // How long until tryAcquire would succeed, 0 if it would now
+    synchronized long nanosUntilAvailable() {
+        refill();
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.foodDetection.prediction;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.tensorflow.Result;
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.SessionFunction;
+import org.tensorflow.ndarray.Shape;
+import org.tensorflow.ndarray.buffer.DataBuffers;
+import org.tensorflow.proto.ConfigProto;
+import org.tensorflow.types.TFloat32;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// In-process engine: loads saved_model/ once into the JVM and runs it on CPU, so a prediction
+// is a function call instead of temp file + Python round trip. Falls back to the Python
+// subprocess when the model cannot be loaded or inference fails.
+@Component
+@Primary
+@ConditionalOnProperty(name = "predictor.engine", havingValue = "tensorflow")
+public class TensorFlowPredictor implements Predictor {
+
+    private static final Logger log = LoggerFactory.getLogger(TensorFlowPredictor.class);
+
+    @Value("${predictor.model-dir:saved_model}")
+    private String modelDir;
+
+    @Autowired
+    private ImagePreprocessor imagePreprocessor;
+
+    @Autowired
+    private ClassLabels classLabels;
+
+    @Autowired
+    private PythonPredictor fallback;
+
+    private SavedModelBundle bundle;
+    private SessionFunction servingFunction;
+    private String inputName;
+    private volatile boolean loadFailed;
+
+    @Override
+    public PredictionResult predict(ImageInput image) throws Exception {
+        return predictBatch(List.of(image)).get(0);
+    }
+
+    @Override
+    public boolean usesJvmPixels() {
+        return true;
+    }
+
+    // Stacks the batch into one [n, 224, 224, 3] tensor for a single forward pass
+    @Override
+    public List<PredictionResult> predictBatch(List<ImageInput> images) throws Exception {
+        SessionFunction function = loadModel();
+        if (function == null) {
+            return fallback.predictBatch(images);
+        }
+
+        try {
+            int batchSize = images.size();
+            // Each image is decoded straight into its slot of a pooled batch buffer, in parallel
+            float[] input = imagePreprocessor.acquireBuffer(batchSize);
+            float[][] scores;
+            try {
+                imagePreprocessor.preprocessBatch(images, input);
+                scores = run(function, input, batchSize);
+            } finally {
+                imagePreprocessor.releaseBuffer(input);
+            }
+            List<String> classNames = classLabels.getNames();
+            List<PredictionResult> results = new ArrayList<>(batchSize);
+            for (float[] imageScores : scores) {
+                results.add(PredictionResult.fromScores(imageScores, classNames));
+            }
+            return results;
+        } catch (Exception e) {
+            log.warn("In-JVM inference failed, using Python predictor: {}", e.getMessage());
+            return fallback.predictBatch(images);
+        }
+    }
+
+    private float[][] run(SessionFunction function, float[] input, int batchSize) {
+        Shape shape = Shape.of(batchSize, ImagePreprocessor.INPUT_SIZE, ImagePreprocessor.INPUT_SIZE, ImagePreprocessor.CHANNELS);
+        try (TFloat32 tensor = TFloat32.tensorOf(shape, DataBuffers.of(input, true, false));
+             Result result = function.call(Map.of(inputName, tensor))) {
+            // Same as predict_spring.py: the first structured output holds the class probabilities
+            TFloat32 probabilities = (TFloat32) result.get(0);
+            int classes = (int) probabilities.shape().get(1);
+            float[][] scores = new float[batchSize][classes];
+            for (int b = 0; b < batchSize; b++) {
+                for (int i = 0; i < classes; i++) {
+                    scores[b][i] = probabilities.getFloat(b, i);
+                }
+            }
+            return scores;
+        }
+    }
+
+    private synchronized SessionFunction loadModel() {
+        if (servingFunction != null || loadFailed) {
+            return servingFunction;
+        }
+        try {
+            // CPU only: hide any GPU from the session
+            ConfigProto config = ConfigProto.newBuilder().putDeviceCount("GPU", 0).build();
+            bundle = SavedModelBundle.loader(modelDir).withTags("serve").withConfigProto(config).load();
+            servingFunction = bundle.function("serving_default");
+            inputName = servingFunction.signature().inputNames().iterator().next();
+            log.info("Loaded {} into the JVM (input: {})", modelDir, inputName);
+        } catch (Exception | UnsatisfiedLinkError e) {
+            log.warn("Could not load {} in-process, using Python predictor: {}", modelDir, e.getMessage());
+            loadFailed = true;
+        }
+        return servingFunction;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (bundle != null) {
+            bundle.close();
+        }
+    }
+}
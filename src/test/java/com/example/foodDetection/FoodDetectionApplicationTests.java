@@ -3,7 +3,9 @@ package com.example.foodDetection;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Warmup would start the Python workers and call Spoonacular; the job queue would create its
+// directory in the working directory
+@SpringBootTest(properties = "warmup.enabled=false")
 class FoodDetectionApplicationTests {
 
 	@Test
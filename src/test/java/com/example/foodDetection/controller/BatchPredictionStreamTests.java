@@ -0,0 +1,140 @@
+package com.example.foodDetection.controller;
+
+import com.example.foodDetection.controller.BatchPredictionStream.BatchItem;
+import com.example.foodDetection.controller.BatchPredictionStream.BatchSource;
+import com.example.foodDetection.prediction.ConfidencePolicy;
+import com.example.foodDetection.prediction.ImageInput;
+import com.example.foodDetection.prediction.PredictionPipeline;
+import com.example.foodDetection.prediction.PredictionResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchPredictionStreamTests {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger maxRunning = new AtomicInteger();
+
+	private final PredictionPipeline pipeline = new PredictionPipeline() {
+		@Override
+		public PredictionResult predict(ImageInput input) throws Exception {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(20);
+				return PredictionResult.fromScores(new float[] { 0.9f, 0.1f }, List.of("pizza", "sushi"));
+			} finally {
+				running.decrementAndGet();
+			}
+		}
+	};
+
+	private final ConfidencePolicy policy = defaultPolicy();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void streamsOneLinePerImageWithinParallelism() throws IOException {
+		List<JsonNode> lines = run(source(10, -1), false, 3);
+
+		assertEquals(11, lines.size());
+		JsonNode done = lines.get(10);
+		assertTrue(done.get("done").asBoolean());
+		assertEquals(10, done.get("images").asInt());
+		assertEquals(0, done.get("failed").asInt());
+		assertEquals("pizza", lines.get(0).get("food").asText());
+		assertTrue(maxRunning.get() <= 3);
+	}
+
+	@Test
+	void failedImageIsReportedWithoutFailingTheBatch() throws IOException {
+		List<JsonNode> lines = run(source(4, 2), false, 2);
+
+		JsonNode failedLine = lines.stream().filter(line -> line.path("index").asInt(-1) == 2).findFirst().orElseThrow();
+		assertEquals("broken", failedLine.get("error").asText());
+		assertEquals(1, lines.get(4).get("failed").asInt());
+	}
+
+	@Test
+	void sourceErrorEndsTheStreamWithASummary() throws IOException {
+		AtomicInteger calls = new AtomicInteger();
+		BatchSource source = () -> {
+			if (calls.incrementAndGet() > 2) {
+				throw new IOException("truncated zip");
+			}
+			return BatchItem.of("ok.jpg", ImageInput.of(new byte[] { 1 }));
+		};
+
+		List<JsonNode> lines = run(source, false, 4);
+
+		JsonNode done = lines.get(lines.size() - 1);
+		assertEquals(2, done.get("images").asInt());
+		assertTrue(done.get("error").asText().contains("truncated zip"));
+	}
+
+	@Test
+	void sseFramesCarryEventNames() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new BatchPredictionStream(source(1, -1), true, false, 1, executor, pipeline, policy, null).writeTo(out);
+
+		String body = out.toString(StandardCharsets.UTF_8);
+		assertTrue(body.startsWith("event: result\ndata: {"));
+		assertTrue(body.contains("\n\nevent: done\ndata: {"));
+	}
+
+	private List<JsonNode> run(BatchSource source, boolean sse, int parallelism) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new BatchPredictionStream(source, sse, false, parallelism, executor, pipeline, policy, null).writeTo(out);
+
+		List<JsonNode> lines = new ArrayList<>();
+		for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+			lines.add(objectMapper.readTree(line));
+		}
+		return lines;
+	}
+
+	private static BatchSource source(int count, int failingIndex) {
+		AtomicInteger next = new AtomicInteger();
+		return () -> {
+			int i = next.getAndIncrement();
+			if (i >= count) {
+				return null;
+			}
+			if (i == failingIndex) {
+				return BatchItem.failed("image" + i + ".jpg", "broken");
+			}
+			return BatchItem.of("image" + i + ".jpg", ImageInput.of(new byte[] { (byte) i }));
+		};
+	}
+
+	// The defaults of the decision.* properties
+	private static ConfidencePolicy defaultPolicy() {
+		ConfidencePolicy policy = new ConfidencePolicy();
+		ReflectionTestUtils.setField(policy, "accept", 0.6);
+		ReflectionTestUtils.setField(policy, "floor", 0.2);
+		ReflectionTestUtils.setField(policy, "coverage", 0.9);
+		ReflectionTestUtils.setField(policy, "maxCandidates", 5);
+		ReflectionTestUtils.setField(policy, "minCandidateConfidence", 0.05);
+		ReflectionTestUtils.setField(policy, "classThresholdsFile", "");
+		policy.init();
+		return policy;
+	}
+}
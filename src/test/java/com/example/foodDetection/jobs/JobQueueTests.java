@@ -0,0 +1,148 @@
+package com.example.foodDetection.jobs;
+
+import com.example.foodDetection.jobs.JobQueue.QueuedJob;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobQueueTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void replaysJobsWithoutAResultAfterRestart() throws IOException {
+		QueuedJob first;
+		try (JobQueue queue = open()) {
+			queue.recover(Set.of(), 0);
+			first = append(queue, "a", "pizza");
+			append(queue, "b", "sushi");
+		}
+
+		try (JobQueue restarted = open()) {
+			List<QueuedJob> pending = restarted.recover(Set.of(first.seq), 0);
+
+			assertEquals(1, pending.size());
+			assertEquals("b", pending.get(0).id);
+			assertEquals("sushi", new String(restarted.readImage(pending.get(0)), StandardCharsets.UTF_8));
+			assertTrue(append(restarted, "c", "ramen").seq > pending.get(0).seq);
+		}
+	}
+
+	@Test
+	void ignoresARecordTornByACrash() throws IOException {
+		try (JobQueue queue = open()) {
+			queue.recover(Set.of(), 0);
+			append(queue, "a", "pizza");
+			append(queue, "b", "sushi");
+		}
+		// Corrupt the last byte of the second image, as if the process died mid-write
+		Path segment = segments().get(0);
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			byte[] bytes = Files.readAllBytes(segment);
+			int end = new String(bytes, StandardCharsets.ISO_8859_1).indexOf("sushi") + 4;
+			file.seek(end);
+			file.write('X');
+		}
+
+		try (JobQueue restarted = open()) {
+			List<QueuedJob> pending = restarted.recover(Set.of(), 0);
+
+			assertEquals(1, pending.size());
+			assertEquals("a", pending.get(0).id);
+		}
+	}
+
+	@Test
+	void deletesASegmentOnceAllItsJobsComplete() throws IOException {
+		try (JobQueue queue = new JobQueue(tempDir, 64, false)) {
+			queue.recover(Set.of(), 0);
+			QueuedJob first = append(queue, "a", "pizza");
+			QueuedJob second = append(queue, "b", "sushi");
+			assertEquals(2, segments().size());
+
+			queue.complete(first);
+			assertEquals(1, segments().size());
+			assertEquals(second.seq, queue.getOldestSeq());
+
+			// The active segment stays until the next one is started
+			queue.complete(second);
+			assertEquals(1, segments().size());
+		}
+	}
+
+	@Test
+	void keepsResultsUntilTheyExpire() throws IOException {
+		Path log = tempDir.resolve("results.log");
+		try (JobResults results = new JobResults(log, 1000, false)) {
+			results.recover(0);
+			results.put(result("a", 1, 100));
+			results.put(result("b", 2, 5000));
+			assertNotNull(results.get("a", 1000));
+			assertNull(results.get("a", 2000));
+		}
+
+		try (JobResults restarted = new JobResults(log, 1000, false)) {
+			Set<Long> completed = restarted.recover(2000);
+
+			assertEquals(Set.of(1L, 2L), completed);
+			assertNull(restarted.get("a", 2000));
+			assertEquals("done", restarted.get("b", 2000).path("status").asText());
+		}
+	}
+
+	@Test
+	void compactsOnlyAfterTheLogHasGrown() throws IOException {
+		try (JobResults results = new JobResults(tempDir.resolve("results.log"), 1000, false)) {
+			results.recover(0);
+			// Well over 1 MB of results that all stay live
+			for (int i = 0; i < 20_000; i++) {
+				results.put(result("job-" + i, i, 5000));
+			}
+
+			results.expire(1000, Long.MAX_VALUE);
+			results.expire(1000, Long.MAX_VALUE);
+
+			// Nothing was dropped, and the second pass saw no growth worth another rewrite
+			assertEquals(1, results.getCompactions());
+			assertEquals(20_000, results.size());
+		}
+	}
+
+	private JobQueue open() {
+		return new JobQueue(tempDir, 4096, false);
+	}
+
+	private static QueuedJob append(JobQueue queue, String id, String image) throws IOException {
+		byte[] bytes = image.getBytes(StandardCharsets.UTF_8);
+		return queue.append(id, 0, false, null, bytes, bytes.length);
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(tempDir)) {
+			return files.filter(file -> file.getFileName().toString().startsWith("segment-")).sorted().toList();
+		}
+	}
+
+	private static ObjectNode result(String id, long seq, long completedAt) {
+		ObjectNode result = new ObjectMapper().createObjectNode();
+		result.put("id", id);
+		result.put("seq", seq);
+		result.put("status", "done");
+		result.put("completedAt", completedAt);
+		return result;
+	}
+
+}
@@ -0,0 +1,78 @@
+package com.example.foodDetection.prediction;
+
+import com.example.foodDetection.prediction.PredictionDecision.Outcome;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfidencePolicyTests {
+
+	private static final List<String> CLASSES = List.of("pizza", "lasagna", "ravioli", "steak", "sushi");
+
+	private final ConfidencePolicy policy = defaultPolicy();
+
+	@Test
+	void confidentResultHasOnlyTheTopClass() {
+		PredictionDecision decision = policy.decide(result(0.85f, 0.1f, 0.03f, 0.01f, 0.01f));
+
+		assertEquals(Outcome.CONFIDENT, decision.getOutcome());
+		assertEquals(List.of("pizza"), decision.getCandidateNames());
+	}
+
+	@Test
+	void lowConfidenceIsUnknownWithoutCandidates() {
+		PredictionDecision decision = policy.decide(result(0.19f, 0.18f, 0.18f, 0.17f, 0.18f));
+
+		assertEquals(Outcome.UNKNOWN, decision.getOutcome());
+		assertTrue(decision.getCandidates().isEmpty());
+	}
+
+	@Test
+	void ambiguousCandidatesStopAtCoverage() {
+		// 0.5 + 0.42 reaches 90%, so ravioli and the rest are left out
+		PredictionDecision decision = policy.decide(result(0.5f, 0.42f, 0.05f, 0.02f, 0.01f));
+
+		assertEquals(Outcome.AMBIGUOUS, decision.getOutcome());
+		assertEquals(List.of("pizza", "lasagna"), decision.getCandidateNames());
+	}
+
+	@Test
+	void ambiguousCandidatesSkipNegligibleClasses() {
+		PredictionDecision decision = policy.decide(result(0.4f, 0.3f, 0.04f, 0.03f, 0.23f));
+
+		assertEquals(List.of("pizza", "lasagna", "sushi"), decision.getCandidateNames());
+	}
+
+	@Test
+	void classThresholdsOverrideTheDefaults() {
+		ConfidencePolicy.Thresholds strict = new ConfidencePolicy.Thresholds();
+		strict.accept = 0.9;
+		policy.setClassThresholds(Map.of("pizza", strict));
+
+		assertEquals(Outcome.AMBIGUOUS, policy.decide(result(0.85f, 0.1f, 0.03f, 0.01f, 0.01f)).getOutcome());
+		// The floor is still the global one
+		assertEquals(Outcome.UNKNOWN, policy.decide(result(0.19f, 0.18f, 0.18f, 0.17f, 0.18f)).getOutcome());
+	}
+
+	private static PredictionResult result(float... scores) {
+		return PredictionResult.fromScores(scores, CLASSES);
+	}
+
+	// The defaults of the decision.* properties
+	private static ConfidencePolicy defaultPolicy() {
+		ConfidencePolicy policy = new ConfidencePolicy();
+		ReflectionTestUtils.setField(policy, "accept", 0.6);
+		ReflectionTestUtils.setField(policy, "floor", 0.2);
+		ReflectionTestUtils.setField(policy, "coverage", 0.9);
+		ReflectionTestUtils.setField(policy, "maxCandidates", 5);
+		ReflectionTestUtils.setField(policy, "minCandidateConfidence", 0.05);
+		ReflectionTestUtils.setField(policy, "classThresholdsFile", "");
+		policy.init();
+		return policy;
+	}
+}
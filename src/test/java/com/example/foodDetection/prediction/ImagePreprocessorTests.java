@@ -0,0 +1,212 @@
+package com.example.foodDetection.prediction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImagePreprocessorTests {
+
+	private final ImagePreprocessor preprocessor = new ImagePreprocessor();
+
+	@BeforeEach
+	void setUp() {
+		preprocessor.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		preprocessor.shutdown();
+	}
+
+	@Test
+	void largePhotoIsDecodedSubsampled() throws IOException {
+		BufferedImage decoded = preprocessor.decode(ImageInput.of(jpeg(2400, 1800)));
+
+		// 1800 / 224 = 8, so every 8th pixel and row
+		assertEquals(300, decoded.getWidth());
+		assertEquals(225, decoded.getHeight());
+	}
+
+	@Test
+	void smallImageIsDecodedAtFullSize() throws IOException {
+		BufferedImage decoded = preprocessor.decode(ImageInput.of(jpeg(300, 200)));
+
+		assertEquals(300, decoded.getWidth());
+		assertEquals(200, decoded.getHeight());
+	}
+
+	@Test
+	void exifOrientationIsAppliedLikeOpenCv() throws IOException {
+		// Orientation 6: stored landscape, shown rotated 90 degrees clockwise
+		BufferedImage decoded = preprocessor.decode(ImageInput.of(withOrientation(jpeg(2400, 1800), 6)));
+
+		assertEquals(225, decoded.getWidth());
+		assertEquals(300, decoded.getHeight());
+		// The stored top-left corner (orange, the gradient's start) ends up top-right
+		Color topRight = new Color(decoded.getRGB(224, 0));
+		assertTrue(topRight.getRed() > 150 && topRight.getBlue() < 100, topRight.toString());
+	}
+
+	@Test
+	void subsampledPixelsStayCloseToFullDecode() throws IOException {
+		byte[] photo = jpeg(2400, 1800);
+		int[] reference = fullDecode(photo);
+
+		byte[] rgb = preprocessor.toRgbBytes(ImageInput.of(photo));
+
+		double totalError = 0;
+		for (int i = 0; i < reference.length; i++) {
+			totalError += Math.abs(((reference[i] >> 16) & 0xff) - (rgb[i * 3] & 0xff))
+				+ Math.abs(((reference[i] >> 8) & 0xff) - (rgb[i * 3 + 1] & 0xff))
+				+ Math.abs((reference[i] & 0xff) - (rgb[i * 3 + 2] & 0xff));
+		}
+		double meanError = totalError / rgb.length;
+		assertTrue(meanError < 4, "mean error " + meanError);
+	}
+
+	@Test
+	void batchMatchesSingleImages() throws IOException {
+		List<ImageInput> images = List.of(ImageInput.of(jpeg(640, 480)), ImageInput.of(jpeg(1000, 700)));
+		float[] batch = preprocessor.acquireBuffer(2);
+
+		preprocessor.preprocessBatch(images, batch);
+
+		for (int i = 0; i < images.size(); i++) {
+			float[] single = preprocessor.preprocess(images.get(i));
+			float[] slot = new float[ImagePreprocessor.INPUT_LENGTH];
+			System.arraycopy(batch, i * ImagePreprocessor.INPUT_LENGTH, slot, 0, slot.length);
+			assertArrayEquals(single, slot);
+		}
+	}
+
+	@Test
+	void releasedBufferIsReused() {
+		float[] buffer = preprocessor.acquireBuffer(3);
+		preprocessor.releaseBuffer(buffer);
+
+		assertTrue(buffer == preprocessor.acquireBuffer(3));
+		assertEquals(ImagePreprocessor.INPUT_LENGTH, preprocessor.acquireBuffer(1).length);
+	}
+
+	@Test
+	void rgbBytesCarryTheSameValuesAsTheTensor() throws IOException {
+		byte[] photo = jpeg(800, 600);
+
+		float[] tensor = preprocessor.preprocess(ImageInput.of(photo));
+		byte[] rgb = preprocessor.toRgbBytes(ImageInput.of(photo));
+
+		for (int i = 0; i < tensor.length; i++) {
+			assertEquals(tensor[i], (float) (rgb[i] & 0xff));
+		}
+	}
+
+	@Test
+	void hashingLeavesThePixelsDecodedForTheEngine() throws IOException {
+		ImageInput image = ImageInput.of(jpeg(2400, 1800));
+
+		preprocessor.perceptualHash(image, true);
+		byte[] pixels = image.getPixels();
+
+		assertNotNull(pixels);
+		assertSame(pixels, preprocessor.toRgbBytes(image));
+		assertSame(pixels, preprocessor.toRgbBatch(List.of(image)).get(0));
+	}
+
+	@Test
+	void hashingForTheOriginalBytesKeepsNoPixels() throws IOException {
+		byte[] photo = withSquares(2400, 1800);
+		ImageInput image = ImageInput.of(photo);
+
+		long thumbnailHash = preprocessor.perceptualHash(image, false);
+
+		assertNull(image.getPixels());
+		// Close to the hash of the model-ready pixels, so either path finds the same duplicates
+		long pixelHash = preprocessor.perceptualHash(ImageInput.of(photo), true);
+		assertTrue(PerceptualHash.distance(thumbnailHash, pixelHash) <= 6);
+	}
+
+	@Test
+	void undecodableImagesAreLeftForPython() throws IOException {
+		List<byte[]> pixels = preprocessor.toRgbBatch(List.of(
+			ImageInput.of(new byte[] { 1, 2, 3 }), ImageInput.of(jpeg(320, 240))
+		));
+
+		assertNull(pixels.get(0));
+		assertNotNull(pixels.get(1));
+	}
+
+	// Inserts a big-endian EXIF APP1 segment holding only an orientation tag after the JFIF APP0
+	private static byte[] withOrientation(byte[] jpeg, int orientation) {
+		byte[] app1 = {
+			(byte) 0xFF, (byte) 0xE1, 0, 34,
+			'E', 'x', 'i', 'f', 0, 0,
+			'M', 'M', 0, 42, 0, 0, 0, 8,
+			0, 1,
+			0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+			0, 0, 0, 0
+		};
+		int app0End = 4 + ((jpeg[4] & 0xFF) << 8 | jpeg[5] & 0xFF);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(jpeg, 0, app0End);
+		out.write(app1, 0, app1.length);
+		out.write(jpeg, app0End, jpeg.length - app0End);
+		return out.toByteArray();
+	}
+
+	// The whole photo decoded and scaled to the model input in one go, as ARGB pixels
+	private static int[] fullDecode(byte[] jpeg) throws IOException {
+		BufferedImage full = ImageIO.read(new ByteArrayInputStream(jpeg));
+		int size = ImagePreprocessor.INPUT_SIZE;
+		BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = scaled.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(full, 0, 0, size, size, null);
+		g.dispose();
+		return scaled.getRGB(0, 0, size, size, null, 0, size);
+	}
+
+	// A plain gradient is too flat to hash, so this one gets some structure
+	private static byte[] withSquares(int width, int height) throws IOException {
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg(width, height)));
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.WHITE);
+		for (int i = 0; i < 4; i++) {
+			g.fillRect(i * width / 4, i * height / 5, width / 8, height / 6);
+		}
+		g.dispose();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "jpg", out);
+		return out.toByteArray();
+	}
+
+	private static byte[] jpeg(int width, int height) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setPaint(new GradientPaint(0, 0, new Color(220, 140, 40), width, height, new Color(20, 80, 160)));
+		g.fillRect(0, 0, width, height);
+		g.dispose();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "jpg", out);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,162 @@
+package com.example.foodDetection.prediction;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearDuplicateIndexTests {
+
+	@Test
+	void recompressedAndResizedCopiesHashClose() throws IOException {
+		BufferedImage photo = dish(800, 600, 1);
+		long original = hash(jpeg(photo));
+		long copy = hash(jpeg(scale(photo, 400, 300)));
+		long otherDish = hash(jpeg(dish(800, 600, 2)));
+
+		assertTrue(PerceptualHash.distance(original, copy) <= 6);
+		assertTrue(PerceptualHash.distance(original, otherDish) > 12);
+	}
+
+	@Test
+	void flatPhotosAreNotHashed() throws IOException {
+		// A dark shot and an overexposed one, each with faint shapes that differ between them
+		assertNull(hash(jpeg(flat(800, 600, new Color(14, 12, 10), 3))));
+		assertNull(hash(jpeg(flat(800, 600, new Color(250, 250, 248), 4))));
+	}
+
+	@Test
+	void findsNearestWithinRadiusOnly() {
+		NearDuplicateIndex index = index(4, 100);
+		PredictionResult stored = result();
+		long hash = 0x0123456789ABCDEFL;
+		index.put(hash, stored);
+
+		assertSame(stored, index.find(hash ^ 0b1011));
+		assertNull(index.find(hash ^ 0b11111));
+		assertEquals(1, index.getHits());
+		assertEquals(1, index.getMisses());
+	}
+
+	@Test
+	void agreesWithBruteForce() {
+		NearDuplicateIndex index = index(6, 2000);
+		Random random = new Random(7);
+		long[] stored = new long[2000];
+		for (int i = 0; i < stored.length; i++) {
+			stored[i] = random.nextLong();
+			index.put(stored[i], result());
+		}
+
+		for (int q = 0; q < 500; q++) {
+			// Half the queries are perturbed copies of stored hashes, half are random
+			long query = q % 2 == 0
+				? flip(stored[random.nextInt(stored.length)], random.nextInt(9), random)
+				: random.nextLong();
+			boolean expected = false;
+			for (long hash : stored) {
+				expected |= PerceptualHash.distance(query, hash) <= 6;
+			}
+			assertEquals(expected, index.find(query) != null, "query " + Long.toHexString(query));
+		}
+	}
+
+	@Test
+	void evictsToStayBoundedButKeepsRecentlyUsed() {
+		NearDuplicateIndex index = index(2, 3);
+		PredictionResult kept = result();
+		index.put(0x1L, kept);
+		index.put(0xF000L, result());
+		index.put(0xF0000000L, result());
+		index.find(0x1L);
+
+		index.put(0xF00000000000L, result());
+
+		assertEquals(3, index.size());
+		assertEquals(1, index.getEvictions());
+		assertSame(kept, index.find(0x1L));
+		assertNull(index.find(0xF000L));
+	}
+
+	private static NearDuplicateIndex index(int radius, int maxEntries) {
+		NearDuplicateIndex index = new NearDuplicateIndex();
+		ReflectionTestUtils.setField(index, "enabled", true);
+		ReflectionTestUtils.setField(index, "radius", radius);
+		ReflectionTestUtils.setField(index, "maxEntries", maxEntries);
+		index.init();
+		return index;
+	}
+
+	private static long flip(long hash, int bits, Random random) {
+		for (int i = 0; i < bits; i++) {
+			hash ^= 1L << random.nextInt(64);
+		}
+		return hash;
+	}
+
+	private static PredictionResult result() {
+		return PredictionResult.fromScores(new float[] { 0.9f, 0.1f }, List.of("pizza", "sushi"));
+	}
+
+	private static Long hash(byte[] jpeg) throws IOException {
+		return new ImagePreprocessor().perceptualHash(ImageInput.of(jpeg), false);
+	}
+
+	// Blobs of color on a plate, placed by seed
+	private static BufferedImage dish(int width, int height, long seed) {
+		Random random = new Random(seed);
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(new Color(235, 230, 220));
+		g.fillRect(0, 0, width, height);
+		for (int i = 0; i < 12; i++) {
+			g.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+			g.fillOval(random.nextInt(width), random.nextInt(height), width / 4, height / 4);
+		}
+		g.dispose();
+		return image;
+	}
+
+	// Nearly uniform: shapes one luma step off the background
+	private static BufferedImage flat(int width, int height, Color background, long seed) {
+		Random random = new Random(seed);
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(background);
+		g.fillRect(0, 0, width, height);
+		g.setColor(background.getRed() < 128 ? background.brighter() : new Color(248, 248, 246));
+		for (int i = 0; i < 6; i++) {
+			g.fillOval(random.nextInt(width), random.nextInt(height), width / 5, height / 5);
+		}
+		g.dispose();
+		return image;
+	}
+
+	private static BufferedImage scale(BufferedImage image, int width, int height) {
+		BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = scaled.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		return scaled;
+	}
+
+	private static byte[] jpeg(BufferedImage image) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "jpg", out);
+		return out.toByteArray();
+	}
+}
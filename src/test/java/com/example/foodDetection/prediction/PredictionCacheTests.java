@@ -0,0 +1,74 @@
+package com.example.foodDetection.prediction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PredictionCacheTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void evictsLeastRecentlyUsedEntry() {
+		PredictionCache cache = newCache(2, "");
+
+		cache.put("a", prediction("pizza"));
+		cache.put("b", prediction("sushi"));
+		cache.get("a");
+		cache.put("c", prediction("ramen"));
+
+		assertNotNull(cache.get("a"));
+		assertNull(cache.get("b"));
+		assertEquals(1, cache.getEvictions());
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	void identicalBytesShareAKey() throws IOException {
+		PredictionCache cache = newCache(10, "");
+		byte[] image = "same image".getBytes(StandardCharsets.UTF_8);
+		Path file = Files.write(tempDir.resolve("same.jpg"), image);
+
+		assertEquals(cache.keyFor(ImageInput.of(image)), cache.keyFor(ImageInput.ofFile(file)));
+		assertNotEquals(cache.keyFor(ImageInput.of(image)),
+			cache.keyFor(ImageInput.of("other image".getBytes(StandardCharsets.UTF_8))));
+	}
+
+	@Test
+	void survivesRestartWhenPersisted() {
+		String file = tempDir.resolve("predictions.json").toString();
+		PredictionCache cache = newCache(10, file);
+		cache.put("a", prediction("steak"));
+		cache.save();
+
+		PredictionCache restarted = newCache(10, file);
+
+		assertEquals("steak", restarted.get("a").getFoodName());
+	}
+
+	private static PredictionCache newCache(int maxEntries, String file) {
+		PredictionCache cache = new PredictionCache();
+		ReflectionTestUtils.setField(cache, "enabled", true);
+		ReflectionTestUtils.setField(cache, "maxEntries", maxEntries);
+		ReflectionTestUtils.setField(cache, "cacheFile", file);
+		cache.init();
+		return cache;
+	}
+
+	private static PredictionResult prediction(String food) {
+		PredictionResult result = new PredictionResult();
+		result.setFoodName(food);
+		result.setConfidence(90.0);
+		return result;
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.example.foodDetection.prediction;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PredictionResultTests {
+
+	private static final List<String> CLASSES = List.of(
+		"donuts", "french_fries", "hamburger", "ice_cream", "pizza", "ramen", "steak", "sushi");
+
+	@Test
+	void fromScoresMatchesPythonOutputFormat() {
+		float[] scores = {0.01f, 0.02f, 0.05f, 0.60f, 0.20f, 0.07f, 0.03f, 0.02f};
+
+		PredictionResult result = PredictionResult.fromScores(scores, CLASSES);
+
+		assertEquals("ice cream", result.getFoodName());
+		assertEquals(60.0, result.getConfidence(), 0.001);
+		assertEquals(List.of(
+			"ice cream (60.0%)", "pizza (20.0%)", "ramen (7.0%)", "hamburger (5.0%)", "steak (3.0%)"),
+			result.getAllPredictions());
+	}
+
+	@Test
+	void fromScoresKeepsFirstIndexOnTies() {
+		float[] scores = {0.25f, 0.25f, 0.25f, 0.25f};
+
+		PredictionResult result = PredictionResult.fromScores(scores, CLASSES);
+
+		assertEquals("donuts", result.getFoodName());
+		assertEquals(4, result.getAllPredictions().size());
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.example.foodDetection.prediction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PredictionSchedulerTests {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final PredictionScheduler scheduler = new PredictionScheduler();
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		scheduler.shutdown();
+	}
+
+	@Test
+	void callerStopsWaitingForABatchThatNeverFinishes() {
+		// An engine that hangs: the caller must not wait on it forever
+		Predictor hanging = image -> {
+			release.await();
+			return PredictionResult.fromScores(new float[] { 1f }, List.of("pizza"));
+		};
+		ReflectionTestUtils.setField(scheduler, "predictor", hanging);
+		ReflectionTestUtils.setField(scheduler, "enabled", true);
+		ReflectionTestUtils.setField(scheduler, "maxBatchSize", 8);
+		ReflectionTestUtils.setField(scheduler, "maxWaitMs", 1L);
+		ReflectionTestUtils.setField(scheduler, "maxConcurrentBatches", 1);
+		ReflectionTestUtils.setField(scheduler, "requestTimeoutMs", 50L);
+		scheduler.start();
+
+		assertThrows(TimeoutException.class, () -> scheduler.predict(ImageInput.of(new byte[] { 1 })));
+		// Queued behind the hung batch, so it times out in the queue and is taken out of it
+		assertThrows(TimeoutException.class, () -> scheduler.predict(ImageInput.of(new byte[] { 2 })));
+	}
+}
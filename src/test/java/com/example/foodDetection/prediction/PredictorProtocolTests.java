@@ -0,0 +1,41 @@
+package com.example.foodDetection.prediction;
+
+import com.example.foodDetection.prediction.PredictorProtocol.Message;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PredictorProtocolTests {
+
+	@Test
+	void decodesFullScoreVector() throws IOException {
+		Message message = PredictorProtocol.decode(
+			"{\"v\":1,\"type\":\"scores\",\"scores\":[0.125,0.75,1.00000001e-05,0.124989986]}", 4);
+
+		assertEquals(PredictorProtocol.Type.SCORES, message.getType());
+		assertArrayEquals(new float[] {0.125f, 0.75f, 1.0e-5f, 0.124989986f}, message.getScores(), 0f);
+	}
+
+	@Test
+	void growsScoresBeyondExpectedLength() throws IOException {
+		Message message = PredictorProtocol.decode("{\"type\":\"scores\",\"v\":1,\"scores\":[0.1,0.2,0.3]}", 1);
+
+		assertEquals(3, message.getScores().length);
+	}
+
+	@Test
+	void decodesErrorsAndHandshake() throws IOException {
+		assertEquals("Could not read image",
+			PredictorProtocol.decode("{\"type\":\"error\",\"message\":\"Could not read image\",\"v\":1}", 0).getMessage());
+		assertEquals(8, PredictorProtocol.decode("{\"type\":\"ready\",\"classes\":8,\"v\":1}", 0).getClasses());
+	}
+
+	@Test
+	void rejectsOtherProtocolVersions() {
+		assertThrows(IOException.class, () -> PredictorProtocol.decode("{\"v\":2,\"type\":\"pong\"}", 0));
+		assertThrows(IOException.class, () -> PredictorProtocol.decode("{\"type\":\"pong\"}", 0));
+	}
+
+}
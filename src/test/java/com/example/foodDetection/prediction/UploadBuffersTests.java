@@ -0,0 +1,41 @@
+package com.example.foodDetection.prediction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UploadBuffersTests {
+
+	private final UploadBuffers uploadBuffers = new UploadBuffers();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(uploadBuffers, "maxInMemoryBytes", 1024);
+		ReflectionTestUtils.setField(uploadBuffers, "poolSize", 1);
+		uploadBuffers.init();
+	}
+
+	@Test
+	void burstBeyondThePoolGetsExactSizeBuffers() {
+		byte[] pooled = uploadBuffers.acquire(10);
+		byte[] extra = uploadBuffers.acquire(10);
+
+		assertEquals(1024, pooled.length);
+		assertEquals(10, extra.length);
+	}
+
+	@Test
+	void onlyPoolBuffersAreReturnedToThePool() {
+		byte[] pooled = uploadBuffers.acquire(10);
+		byte[] extra = uploadBuffers.acquire(10);
+
+		uploadBuffers.release(extra);
+		assertEquals(0, uploadBuffers.getFreeBuffers());
+		uploadBuffers.release(pooled);
+		assertEquals(1, uploadBuffers.getFreeBuffers());
+		assertSame(pooled, uploadBuffers.acquire(10));
+	}
+}
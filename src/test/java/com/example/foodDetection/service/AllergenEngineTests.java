@@ -0,0 +1,93 @@
+package com.example.foodDetection.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AllergenEngineTests {
+
+	private final AllergenEngine engine = bundled();
+
+	@Test
+	void wordsInsideOtherWordsDoNotMatch() {
+		assertEquals(List.of(), detect("1 tsp ground nutmeg", "1 eggplant, diced", "butternut squash"));
+	}
+
+	@Test
+	void wholeWordsAndPluralsMatch() {
+		assertEquals(List.of("Eggs", "Tree Nuts"), detect("2 large eggs", "1/2 cup chopped walnuts"));
+		assertEquals(List.of("Dairy"), detect("Parmesan, grated"));
+	}
+
+	@Test
+	void longestOverlappingTermWins() {
+		assertEquals(List.of(), detect("1 tsp cream of tartar", "1 can coconut milk"));
+		assertEquals(List.of("Tree Nuts"), detect("2 tbsp peanut butter", "almond milk"));
+		assertEquals(List.of("Soy"), detect("1 cup soy milk"));
+	}
+
+	@Test
+	void shorterTermStillMatchesWhenTheLongerOneIsNotOnAWordBoundary() {
+		// "ice cream" is a term, but here only "cream" stands on its own
+		assertEquals(List.of("Dairy"), detect("rice cream"));
+	}
+
+	@Test
+	void matchingIsCaseAndAccentInsensitive() {
+		assertEquals(List.of("Dairy", "Gluten"), detect("CRÈME FRAÎCHE", "All-Purpose Flour"));
+	}
+
+	@Test
+	void ingredientsAreMatchedSeparately() {
+		// "egg" at the end of one ingredient and "white" at the start of the next are not "egg white"
+		long allergens = engine.detect(List.of("1 egg", "white pepper"));
+		assertEquals(List.of("Eggs"), engine.namesOf(allergens));
+	}
+
+	@Test
+	void resultIsOneBitPerAllergenInRulesOrder() throws IOException {
+		String rules = """
+			{"allergens": [
+			  {"name": "Sesame", "terms": ["sesame", "tahini"]},
+			  {"name": "Mustard", "terms": ["mustard"]}
+			], "exclusions": ["mustard greens"]}
+			""";
+		AllergenEngine custom = AllergenEngine.fromRules(new ByteArrayInputStream(rules.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(0b11L, custom.detect("tahini with dijon mustard"));
+		assertEquals(0b01L, custom.detect("sesame oil and mustard greens"));
+		assertEquals(List.of("Sesame", "Mustard"), custom.getAllergenNames());
+	}
+
+	@Test
+	void hundredsOfTermsCompileAndMatch() throws IOException {
+		StringBuilder terms = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			terms.append(i > 0 ? "," : "").append("\"term").append(i).append("x\"");
+		}
+		String rules = "{\"allergens\": [{\"name\": \"Test\", \"terms\": [" + terms + "]}]}";
+		AllergenEngine custom = AllergenEngine.fromRules(new ByteArrayInputStream(rules.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(1L, custom.detect("a pinch of term499x"));
+		assertEquals(0L, custom.detect("a pinch of term499"));
+		assertEquals(1L, custom.detect("term12xs"));
+	}
+
+	private List<String> detect(String... ingredients) {
+		return engine.namesOf(engine.detect(List.of(ingredients)));
+	}
+
+	private static AllergenEngine bundled() {
+		try (InputStream in = AllergenEngine.class.getResourceAsStream("/allergens.json")) {
+			return AllergenEngine.fromRules(in);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.example.foodDetection.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTests {
+
+	@Test
+	void opensAfterConsecutiveFailures() {
+		CircuitBreaker breaker = new CircuitBreaker(3, 60_000);
+
+		breaker.recordFailure();
+		breaker.recordFailure();
+		assertTrue(breaker.allowRequest());
+		breaker.recordFailure();
+
+		assertFalse(breaker.allowRequest());
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+	}
+
+	@Test
+	void successResetsTheFailureCount() {
+		CircuitBreaker breaker = new CircuitBreaker(2, 60_000);
+
+		breaker.recordFailure();
+		breaker.recordSuccess();
+		breaker.recordFailure();
+
+		assertTrue(breaker.allowRequest());
+	}
+
+	@Test
+	void halfOpenLetsOneTrialThrough() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker(1, 20);
+		breaker.recordFailure();
+		Thread.sleep(40);
+
+		assertTrue(breaker.allowRequest());
+		assertFalse(breaker.allowRequest());
+
+		breaker.recordSuccess();
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertTrue(breaker.allowRequest());
+	}
+
+	@Test
+	void failedTrialReopens() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker(5, 20);
+		breaker.openFor(20);
+		Thread.sleep(40);
+
+		assertTrue(breaker.allowRequest());
+		breaker.recordFailure();
+
+		assertTrue(breaker.isOpen());
+	}
+
+	@Test
+	void cancelledTrialLetsTheNextCallThrough() throws InterruptedException {
+		CircuitBreaker breaker = new CircuitBreaker(1, 20);
+		breaker.recordFailure();
+		Thread.sleep(40);
+
+		assertTrue(breaker.allowRequest());
+		breaker.cancelTrial();
+
+		assertTrue(breaker.allowRequest());
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+	}
+
+	@Test
+	void lateSuccessDoesNotCloseAnOpenCircuit() {
+		CircuitBreaker breaker = new CircuitBreaker(5, 60_000);
+		assertTrue(breaker.allowRequest());
+
+		// Quota exhausted by a concurrent call, then the earlier call completes
+		breaker.openFor(60_000);
+		breaker.recordSuccess();
+
+		assertTrue(breaker.isOpen());
+		assertFalse(breaker.allowRequest());
+	}
+}
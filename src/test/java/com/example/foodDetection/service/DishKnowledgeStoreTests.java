@@ -0,0 +1,122 @@
+package com.example.foodDetection.service;
+
+import com.example.foodDetection.service.DishKnowledgeStore.DishEntry;
+import com.example.foodDetection.service.FoodInfoService.FoodInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DishKnowledgeStoreTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void bundledSeedResolvesNamesAndAliases() {
+		DishKnowledgeStore store = store("", "");
+
+		assertEquals("French Fries", store.find("French_Fries").getName());
+		assertSame(store.find("french fries"), store.find("fries"));
+		assertEquals("Donuts", store.find("Donut").getName());
+		assertNull(store.find("tacos"));
+		assertEquals(8, store.size());
+	}
+
+	@Test
+	void snapshotRoundTripsEveryField() throws IOException {
+		List<DishEntry> seed = DishKnowledgeStore.readSeed(null);
+		Path snapshot = tempDir.resolve("dishes.bin");
+
+		DishSnapshot.write(snapshot, seed);
+		List<DishEntry> read = DishSnapshot.read(snapshot);
+
+		assertEquals(seed.size(), read.size());
+		for (int i = 0; i < seed.size(); i++) {
+			FoodInfo expected = seed.get(i).info;
+			FoodInfo actual = read.get(i).info;
+			assertEquals(seed.get(i).key, read.get(i).key);
+			assertEquals(seed.get(i).aliases, read.get(i).aliases);
+			assertEquals(expected.getName(), actual.getName());
+			assertEquals(expected.getDescription(), actual.getDescription());
+			assertEquals(expected.getIngredients(), actual.getIngredients());
+			assertEquals(expected.getAllergens(), actual.getAllergens());
+			assertEquals(expected.getCalories(), actual.getCalories());
+			assertEquals(expected.getDietaryTags(), actual.getDietaryTags());
+		}
+	}
+
+	@Test
+	void storePrefersTheSnapshotWhenPresent() throws IOException {
+		DishEntry tacos = new DishEntry();
+		tacos.key = "tacos";
+		tacos.aliases = List.of("taco");
+		tacos.info = new FoodInfo();
+		tacos.info.setName("Tacos");
+		Path snapshot = tempDir.resolve("dishes.bin");
+		DishSnapshot.write(snapshot, List.of(tacos));
+
+		DishKnowledgeStore store = store("", snapshot.toString());
+
+		assertEquals("Tacos", store.find("Taco").getName());
+		assertNull(store.find("pizza"));
+	}
+
+	@Test
+	void importerMergesRecordedResponsesIntoTheSeed() throws IOException {
+		Path recordings = Files.createDirectories(tempDir.resolve("recordings"));
+		Files.writeString(recordings.resolve("pizza.json"), recipe("Margherita Pizza", "8 oz fresh mozzarella"));
+		Files.writeString(recordings.resolve("fish_and_chips.json"), recipe("Fish and Chips", "1 lb cod fillets"));
+		Files.writeString(recordings.resolve("unknown.json"), "{\"results\": []}");
+
+		List<DishEntry> entries = DishStoreImporter.importRecordings(
+			recordings, DishKnowledgeStore.readSeed(null), bundledAllergens()
+		);
+
+		assertEquals(9, entries.size());
+		DishEntry pizza = entries.stream().filter(e -> e.key.equals("pizza")).findFirst().orElseThrow();
+		assertEquals("Margherita Pizza", pizza.info.getName());
+		assertEquals(List.of("pizzas"), pizza.aliases);
+		DishEntry fish = entries.get(entries.size() - 1);
+		assertEquals("fish and chips", fish.key);
+		assertEquals(List.of("Fish/Seafood"), fish.info.getAllergens());
+		assertTrue(fish.info.isDairyFree());
+	}
+
+	private static DishKnowledgeStore store(String seedFile, String snapshotFile) {
+		DishKnowledgeStore store = new DishKnowledgeStore();
+		ReflectionTestUtils.setField(store, "enabled", true);
+		ReflectionTestUtils.setField(store, "seedFile", seedFile);
+		ReflectionTestUtils.setField(store, "snapshotFile", snapshotFile);
+		store.init();
+		return store;
+	}
+
+	private static String recipe(String title, String ingredient) {
+		return """
+			{"results": [{
+			  "title": "%s",
+			  "summary": "A <b>tasty</b> dish",
+			  "dairyFree": true,
+			  "extendedIngredients": [{"original": "%s"}],
+			  "nutrition": {"nutrients": [{"name": "Calories", "amount": 512.4}]}
+			}]}
+			""".formatted(title, ingredient);
+	}
+
+	private static AllergenEngine bundledAllergens() throws IOException {
+		try (InputStream in = AllergenEngine.class.getResourceAsStream("/allergens.json")) {
+			return AllergenEngine.fromRules(in);
+		}
+	}
+}
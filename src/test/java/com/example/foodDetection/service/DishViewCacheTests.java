@@ -0,0 +1,55 @@
+package com.example.foodDetection.service;
+
+import com.example.foodDetection.service.FoodInfoService.FoodInfo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DishViewCacheTests {
+
+	@Test
+	void reusesTheEncodedViewWhileTheFoodInfoIsUnchanged() throws IOException {
+		DishViewCache cache = new DishViewCache();
+		FoodInfo info = foodInfo("Pizza", 285);
+
+		DishViewCache.Entry first = cache.get("pizza", info);
+		DishViewCache.Entry second = cache.get("Pizza", info);
+
+		assertSame(first, second);
+		assertEquals(1, cache.getHits());
+		JsonNode json = new ObjectMapper().readTree(first.getJson());
+		assertEquals("Pizza", json.path("name").asText());
+		assertEquals(285, json.path("calories").asInt());
+		assertEquals("Vegetarian", json.path("dietaryTags").get(0).asText());
+		assertEquals(1, json.path("allergens").size());
+	}
+
+	@Test
+	void rebuildsWhenTheFoodInfoIsRefreshed() {
+		DishViewCache cache = new DishViewCache();
+		cache.get("pizza", foodInfo("Pizza", 285));
+
+		DishViewCache.Entry refreshed = cache.get("pizza", foodInfo("Pizza", 300));
+
+		assertEquals(300, refreshed.getView().getCalories());
+		assertEquals(1, cache.size());
+		assertEquals(2, cache.getMisses());
+	}
+
+	private static FoodInfo foodInfo(String name, int calories) {
+		FoodInfo info = new FoodInfo();
+		info.setName(name);
+		info.setDescription("Baked flatbread");
+		info.setIngredients(List.of("flour", "tomato", "mozzarella"));
+		info.setAllergens(List.of("Gluten"));
+		info.setVegetarian(true);
+		info.setCalories(calories);
+		return info;
+	}
+
+}
@@ -0,0 +1,156 @@
+package com.example.foodDetection.service;
+
+import com.example.foodDetection.service.FoodInfoCache.Lookup;
+import com.example.foodDetection.service.FoodInfoService.FoodInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FoodInfoCacheTests {
+
+	private final FoodInfoCache cache = new FoodInfoCache();
+
+	@AfterEach
+	void tearDown() {
+		cache.shutdown();
+	}
+
+	@Test
+	void freshEntryIsServedWithoutLoading() {
+		init(60, 60);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get("pizza", () -> lookup("Pizza", loads));
+		FoodInfo second = cache.get("pizza", () -> lookup("Other", loads));
+
+		assertEquals("Pizza", second.getName());
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	void concurrentMissesShareOneLookup() throws Exception {
+		init(60, 60);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			Thread thread = new Thread(() -> cache.get("sushi", () -> {
+				await(release);
+				return lookup("Sushi", loads);
+			}));
+			threads.add(thread);
+			thread.start();
+		}
+		Thread.sleep(100);
+		release.countDown();
+		for (Thread thread : threads) {
+			thread.join(5000);
+		}
+
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void staleEntryIsServedWhileRefreshing() throws Exception {
+		init(0, 60);
+		AtomicInteger loads = new AtomicInteger();
+		cache.get("ramen", () -> lookup("Ramen v1", loads));
+
+		FoodInfo stale = cache.get("ramen", () -> lookup("Ramen v2", loads));
+
+		assertEquals("Ramen v1", stale.getName());
+		assertEquals(1, cache.getStaleHits());
+		for (int i = 0; i < 50 && loads.get() < 2; i++) {
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void failedRefreshKeepsTheUpstreamEntry() throws Exception {
+		init(0, 60);
+		AtomicInteger loads = new AtomicInteger();
+		cache.get("ramen", () -> lookup("Ramen", loads));
+
+		cache.get("ramen", () -> {
+			loads.incrementAndGet();
+			FoodInfo fallback = new FoodInfo();
+			fallback.setName("Fallback");
+			return new Lookup(fallback, false);
+		});
+		for (int i = 0; i < 50 && loads.get() < 2; i++) {
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+		// The loader has run; give the refresh a moment to settle the entry
+		TimeUnit.MILLISECONDS.sleep(50);
+
+		FoodInfo next = cache.get("ramen", () -> lookup("Unexpected", loads));
+		assertEquals("Ramen", next.getName());
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void savedEntriesAreServedAfterARestart() throws IOException {
+		Path file = Files.createTempFile("food-info", ".json");
+		try {
+			AtomicInteger loads = new AtomicInteger();
+			configure(cache, 60, 60, file.toString()).get("pizza", () -> lookup("Pizza", loads));
+			cache.shutdown();
+
+			FoodInfoCache restarted = configure(new FoodInfoCache(), 60, 60, file.toString());
+			FoodInfo restored = restarted.get("pizza", () -> lookup("Other", loads));
+			restarted.shutdown();
+
+			assertEquals("Pizza", restored.getName());
+			assertEquals(1, loads.get());
+			assertTrue(restarted.isFresh("pizza"));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private void init(long ttlMinutes, long staleMinutes) {
+		configure(cache, ttlMinutes, staleMinutes, "");
+	}
+
+	private static FoodInfoCache configure(FoodInfoCache cache, long ttlMinutes, long staleMinutes, String file) {
+		ReflectionTestUtils.setField(cache, "enabled", true);
+		ReflectionTestUtils.setField(cache, "ttlMinutes", ttlMinutes);
+		ReflectionTestUtils.setField(cache, "staleMinutes", staleMinutes);
+		ReflectionTestUtils.setField(cache, "fallbackTtlMinutes", 1L);
+		ReflectionTestUtils.setField(cache, "cacheFile", file);
+		ReflectionTestUtils.setField(cache, "flushIntervalMs", 60000L);
+		cache.init();
+		return cache;
+	}
+
+	private static Lookup lookup(String name, AtomicInteger loads) {
+		loads.incrementAndGet();
+		FoodInfo info = new FoodInfo();
+		info.setName(name);
+		return new Lookup(info, true);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.example.foodDetection.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTests {
+
+	@Test
+	void allowsBurstThenRefills() throws InterruptedException {
+		TokenBucket bucket = new TokenBucket(50, 2);
+
+		assertTrue(bucket.tryAcquire());
+		assertTrue(bucket.tryAcquire());
+		assertFalse(bucket.tryAcquire());
+
+		Thread.sleep(60);
+		assertTrue(bucket.tryAcquire());
+	}
+
+	@Test
+	void spareLeavesTheReservedTokens() {
+		TokenBucket bucket = new TokenBucket(0.001, 2);
+		assertTrue(bucket.hasSpare(1));
+
+		assertTrue(bucket.tryAcquire());
+		assertFalse(bucket.hasSpare(1));
+		assertTrue(bucket.hasSpare(0));
+	}
+
+	@Test
+	void reportsWaitUntilNextToken() {
+		TokenBucket bucket = new TokenBucket(10, 1);
+		assertEquals(0, bucket.nanosUntilAvailable());
+
+		assertTrue(bucket.tryAcquire());
+		long wait = bucket.nanosUntilAvailable();
+		assertTrue(wait > 0 && wait <= 100_000_000L, "wait " + wait);
+	}
+}